@@ -53,7 +53,7 @@ export default function OrderForm({ visible, onCancel, onSuccess, order }) {
                     <Input />
                 </Form.Item>
                 <Form.Item name="products" label="Продукты" rules={[{ required: true }]}>
-                    <ProductSelector />
+                    <ProductSelector initialProducts={order?.products} />
                 </Form.Item>
             </Form>
         </Modal>
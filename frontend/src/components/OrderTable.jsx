@@ -1,20 +1,41 @@
 import { Table, Button, Space, Modal, message } from 'antd';
-import { useEffect, useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import axios from 'axios';
 import OrderForm from './OrderForm';
 import { useNavigate } from 'react-router-dom';
 
+const PAGE_SIZE = 1000;
+
 export default function OrderTable() {
     const [orders, setOrders] = useState([]);
     const [editingOrder, setEditingOrder] = useState(null);
     const [isModalOpen, setIsModalOpen] = useState(false);
     const [toDelete, setToDelete] = useState(null); // 👈 Для своей модалки
     const navigate = useNavigate();
+    const fetchId = useRef(0);
 
-    const fetchOrders = () => {
-        axios.get('http://localhost:8080/orders')
-            .then(res => setOrders(res.data))
-            .catch(console.error);
+    // Сводка отдаётся страницами: идём по afterId, пока не придёт неполная страница
+    const fetchOrders = async () => {
+        const current = ++fetchId.current;
+        const all = [];
+        let afterId = 0;
+        try {
+            while (true) {
+                const res = await axios.get('http://localhost:8080/orders/summary',
+                    { params: { afterId, size: PAGE_SIZE } });
+                all.push(...res.data);
+                if (res.data.length < PAGE_SIZE) {
+                    break;
+                }
+                afterId = res.data[res.data.length - 1].id;
+            }
+            // Ответ устаревшей загрузки не затирает более свежую
+            if (current === fetchId.current) {
+                setOrders(all);
+            }
+        } catch (e) {
+            console.error(e);
+        }
     };
 
     useEffect(() => {
@@ -23,10 +44,7 @@ export default function OrderTable() {
 
     const columns = [
         { title: 'Имя клиента', dataIndex: 'customerName' },
-        {
-            title: 'Продукты',
-            render: (_, record) => record.products.map(p => p.name).join(', ')
-        },
+        { title: 'Товаров', dataIndex: 'productCount' },
         { title: 'Сумма', dataIndex: 'totalAmount' },
         { title: 'Дата', dataIndex: 'orderDate' },
         {
@@ -36,8 +54,13 @@ export default function OrderTable() {
                     <Button
                         style={{ color: '#40e0d0' }}
                         onClick={() => {
-                            setEditingOrder(record);
-                            setIsModalOpen(true);
+                            // В сводке нет товаров — для формы подгружаем заказ целиком
+                            axios.get(`http://localhost:8080/orders/${record.id}`)
+                                .then(res => {
+                                    setEditingOrder(res.data);
+                                    setIsModalOpen(true);
+                                })
+                                .catch(console.error);
                         }}
                     >
                         Изменить
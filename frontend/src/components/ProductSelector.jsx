@@ -1,15 +1,48 @@
 import { Select } from 'antd';
-import { useEffect, useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import axios from 'axios';
 
-export default function ProductSelector({ value = [], onChange }) {
-    const [products, setProducts] = useState([]);
+const NO_PRODUCTS = [];
+
+export default function ProductSelector({ value = [], onChange, initialProducts = NO_PRODUCTS }) {
+    const [options, setOptions] = useState([]);
+    const [known, setKnown] = useState({});
+    const timer = useRef(null);
+
+    const remember = (products) => {
+        setKnown(prev => {
+            const next = { ...prev };
+            products.forEach(p => { next[p.id] = p.name; });
+            return next;
+        });
+    };
 
     useEffect(() => {
-        axios.get('http://localhost:8080/products')
-            .then(res => setProducts(res.data))
-            .catch(console.error);
-    }, []);
+        remember(initialProducts);
+    }, [initialProducts]);
+
+    useEffect(() => () => clearTimeout(timer.current), []);
+
+    const handleSearch = (q) => {
+        clearTimeout(timer.current);
+        if (!q) {
+            setOptions([]);
+            return;
+        }
+        timer.current = setTimeout(() => {
+            axios.get('http://localhost:8080/products/suggest', { params: { q } })
+                .then(res => {
+                    remember(res.data);
+                    setOptions(res.data.map(p => ({ label: p.name, value: p.id })));
+                })
+                .catch(console.error);
+        }, 200);
+    };
+
+    // Выбранные товары должны оставаться подписанными, даже если их нет в текущих подсказках
+    const selected = value
+        .filter(id => !options.some(o => o.value === id))
+        .map(id => ({ label: known[id] ?? `#${id}`, value: id }));
 
     return (
         <Select
@@ -17,13 +50,12 @@ export default function ProductSelector({ value = [], onChange }) {
             showSearch
             allowClear
             style={{ width: '100%' }}
-            placeholder="Выберите товары"
+            placeholder="Начните вводить название товара"
             value={value}
             onChange={onChange}
-            options={products.map(p => ({ label: p.name, value: p.id }))}
-            filterOption={(input, option) =>
-                option?.label.toLowerCase().includes(input.toLowerCase())
-            }
+            onSearch={handleSearch}
+            filterOption={false}
+            options={[...selected, ...options]}
         />
     );
 }
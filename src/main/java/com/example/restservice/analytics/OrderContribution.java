@@ -0,0 +1,33 @@
+package com.example.restservice.analytics;
+
+import com.example.restservice.model.Order;
+import com.example.restservice.model.Product;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Вклад одного заказа в агрегаты: день, сумма и цены его товаров.
+ * Снимается до и после изменения, разница уходит в order_stats_*.
+ */
+public record OrderContribution(LocalDate day, BigDecimal total,
+                                Map<Long, BigDecimal> productPrices) {
+
+    public OrderContribution {
+        productPrices = Map.copyOf(productPrices);
+    }
+
+    public static OrderContribution of(Order order) {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (Product product : order.getProducts()) {
+            prices.put(product.getId(), orZero(product.getPrice()));
+        }
+        return new OrderContribution(order.getOrderDate().toLocalDate(),
+                orZero(order.getTotalAmount()), prices);
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.restservice.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Копия таблиц order_stats_* в памяти. Запросы не ходят в БД и не зависят от числа заказов:
+ * дневные ряды обходятся только в пределах периода, итоги товаров за всё время
+ * посчитаны заранее и упорядочены по выручке. Записи заменяются строками, перечитанными
+ * из таблиц, целиком по дню или по товару, поэтому копия не накапливает собственных ошибок.
+ */
+public class OrderStatsRollup {
+
+    private static final Comparator<ProductTotals> BY_REVENUE =
+            Comparator.comparing((ProductTotals p) -> p.totals().revenue())
+                    .thenComparing(p -> p.totals().orderCount())
+                    .thenComparing(ProductTotals::productId, Comparator.reverseOrder());
+
+    private final NavigableMap<LocalDate, StatsTotals> daily = new ConcurrentSkipListMap<>();
+    private final Map<Long, ProductSeries> products = new ConcurrentHashMap<>();
+    // Итоги товаров за всё время по убыванию выручки; меняется вместе с products
+    private final NavigableSet<ProductTotals> ranking =
+            new ConcurrentSkipListSet<>(BY_REVENUE.reversed());
+
+    public record ProductTotals(long productId, StatsTotals totals) {
+    }
+
+    private record ProductSeries(NavigableMap<LocalDate, StatsTotals> days, StatsTotals total) {
+
+        static ProductSeries of(Map<LocalDate, StatsTotals> rows) {
+            NavigableMap<LocalDate, StatsTotals> days = new TreeMap<>();
+            StatsTotals total = StatsTotals.ZERO;
+            for (Map.Entry<LocalDate, StatsTotals> row : rows.entrySet()) {
+                if (!row.getValue().isEmpty()) {
+                    days.put(row.getKey(), row.getValue());
+                    total = total.plus(row.getValue());
+                }
+            }
+            return new ProductSeries(Collections.unmodifiableNavigableMap(days), total);
+        }
+    }
+
+    /**
+     * Заменяет указанные дни; дни без строки в rows удаляются.
+     */
+    public void replaceDays(Collection<LocalDate> days, Map<LocalDate, StatsTotals> rows) {
+        for (LocalDate day : days) {
+            StatsTotals totals = rows.get(day);
+            if (totals == null || totals.isEmpty()) {
+                daily.remove(day);
+            } else {
+                daily.put(day, totals);
+            }
+        }
+    }
+
+    /**
+     * Заменяет ряды указанных товаров; товары без строк в rows удаляются.
+     * Пока товар переставляется в рейтинге, топ может его не увидеть, но не покажет дважды.
+     */
+    public void replaceProducts(Collection<Long> productIds,
+                                Map<Long, Map<LocalDate, StatsTotals>> rows) {
+        for (Long productId : productIds) {
+            ProductSeries series = ProductSeries.of(rows.getOrDefault(productId, Map.of()));
+            products.compute(productId, (id, previous) -> {
+                if (previous != null) {
+                    ranking.remove(new ProductTotals(id, previous.total()));
+                }
+                if (series.days().isEmpty()) {
+                    return null;
+                }
+                ranking.add(new ProductTotals(id, series.total()));
+                return series;
+            });
+        }
+    }
+
+    public void replaceAll(Map<LocalDate, StatsTotals> dailyRows,
+                           Map<Long, Map<LocalDate, StatsTotals>> productRows) {
+        daily.keySet().retainAll(dailyRows.keySet());
+        replaceDays(dailyRows.keySet(), dailyRows);
+        Set<Long> dropped = new HashSet<>(products.keySet());
+        dropped.removeAll(productRows.keySet());
+        replaceProducts(dropped, Map.of());
+        replaceProducts(productRows.keySet(), productRows);
+    }
+
+    /**
+     * Заказы и выручка по периодам шага bucket внутри [from, to); границы необязательны.
+     */
+    public List<Map.Entry<LocalDate, StatsTotals>> buckets(LocalDate from, LocalDate to,
+                                                          StatsBucket bucket) {
+        Map<LocalDate, StatsTotals> result = new LinkedHashMap<>();
+        range(daily, from, to).forEach((day, totals) ->
+                result.merge(bucket.start(day), totals, StatsTotals::plus));
+        return List.copyOf(result.entrySet());
+    }
+
+    public StatsTotals product(long productId, LocalDate from, LocalDate to) {
+        ProductSeries series = products.get(productId);
+        if (series == null) {
+            return StatsTotals.ZERO;
+        }
+        if (from == null && to == null) {
+            return series.total();
+        }
+        return range(series.days(), from, to).values().stream()
+                .reduce(StatsTotals.ZERO, StatsTotals::plus);
+    }
+
+    /**
+     * limit товаров с наибольшей выручкой за период, по убыванию. Без границ это первые
+     * limit записей рейтинга. С границами суммы за период не хранятся, и обходятся дни
+     * периода у каждого товара: O(товаров × дней в периоде).
+     */
+    public List<ProductTotals> topProducts(int limit, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return ranking.stream().limit(limit).toList();
+        }
+        PriorityQueue<ProductTotals> top = new PriorityQueue<>(limit + 1, BY_REVENUE);
+        products.keySet().forEach(productId -> {
+            StatsTotals totals = product(productId, from, to);
+            if (totals.isEmpty()) {
+                return;
+            }
+            top.add(new ProductTotals(productId, totals));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<ProductTotals> result = new ArrayList<>(top);
+        result.sort(BY_REVENUE.reversed());
+        return result;
+    }
+
+    private static NavigableMap<LocalDate, StatsTotals> range(
+            NavigableMap<LocalDate, StatsTotals> days, LocalDate from, LocalDate to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            return Collections.emptyNavigableMap();
+        }
+        NavigableMap<LocalDate, StatsTotals> result = days;
+        if (from != null) {
+            result = result.tailMap(from, true);
+        }
+        if (to != null) {
+            result = result.headMap(to, false);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.restservice.analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Шаг группировки дневных агрегатов. Неделя начинается с понедельника (ISO).
+ */
+public enum StatsBucket {
+    DAY,
+    WEEK,
+    MONTH;
+
+    public LocalDate start(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(DayOfWeek.MONDAY);
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.restservice.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * Число заказов и выручка за период.
+ */
+public record StatsTotals(long orderCount, BigDecimal revenue) {
+
+    public static final StatsTotals ZERO = new StatsTotals(0, BigDecimal.ZERO);
+
+    public StatsTotals plus(StatsTotals other) {
+        return new StatsTotals(orderCount + other.orderCount, revenue.add(other.revenue));
+    }
+
+    public boolean isEmpty() {
+        return orderCount == 0 && revenue.signum() == 0;
+    }
+}
@@ -106,6 +106,9 @@ public class LoggingAspect {
             }
 
             return result;
+        } catch (RuntimeException ex) {
+            // Без обёртки: обработчики ошибок выбирают HTTP-статус по типу исключения
+            throw ex;
         } catch (Exception ex) {
             throw new LogProcessingException("Ошибка при выполнении запроса " + method
                     + " " + uri, ex);
@@ -0,0 +1,56 @@
+package com.example.restservice.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сообщение канала межузловой инвалидации, передаётся в NOTIFY как JSON.
+ */
+public class CacheInvalidationMessage {
+
+    private String node;
+    private boolean clearOrders;
+    private List<String> orderKeys = new ArrayList<>();
+    private List<Long> productIds = new ArrayList<>();
+    private List<Long> orderIds = new ArrayList<>();
+
+    public String getNode() {
+        return node;
+    }
+
+    public void setNode(String node) {
+        this.node = node;
+    }
+
+    public boolean isClearOrders() {
+        return clearOrders;
+    }
+
+    public void setClearOrders(boolean clearOrders) {
+        this.clearOrders = clearOrders;
+    }
+
+    public List<String> getOrderKeys() {
+        return orderKeys;
+    }
+
+    public void setOrderKeys(List<String> orderKeys) {
+        this.orderKeys = orderKeys;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<Long> orderIds) {
+        this.orderIds = orderIds;
+    }
+}
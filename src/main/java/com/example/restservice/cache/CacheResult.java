@@ -0,0 +1,40 @@
+package com.example.restservice.cache;
+
+import java.time.Duration;
+
+/**
+ * Значение из кэша вместе с его возрастом.
+ * stale означает, что значение старше soft-ttl и могло разойтись с БД.
+ */
+public final class CacheResult<T> {
+
+    private final T value;
+    private final boolean stale;
+    private final Duration age;
+
+    private CacheResult(T value, boolean stale, Duration age) {
+        this.value = value;
+        this.stale = stale;
+        this.age = age;
+    }
+
+    public static <T> CacheResult<T> fresh(T value, Duration age) {
+        return new CacheResult<>(value, false, age);
+    }
+
+    public static <T> CacheResult<T> stale(T value, Duration age) {
+        return new CacheResult<>(value, true, age);
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public Duration getAge() {
+        return age;
+    }
+}
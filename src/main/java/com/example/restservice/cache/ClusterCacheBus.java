@@ -0,0 +1,406 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.event.OrderChangedEvent;
+import com.example.restservice.event.ProductChangedEvent;
+import com.example.restservice.service.OrderBasketService;
+import com.example.restservice.service.ProductSearchService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Канал инвалидации кэшей между узлами поверх PostgreSQL LISTEN/NOTIFY.
+ * Локально сброшенные ключи копятся и раз в flush-interval уходят одним NOTIFY
+ * (крупные пачки режутся под лимит payload), принятые уведомления применяются
+ * пачкой без повторов. Пока соединение LISTEN разорвано, уведомления теряются,
+ * поэтому после переподключения узел сбрасывает свои кэши целиком.
+ * <p>
+ * LISTEN держится на отдельном соединении в обход пула: подписанное соединение,
+ * вернувшееся в пул, копило бы уведомления у случайного заёмщика. Сбой применения
+ * пачки не рвёт подписку — узел так же сбрасывает кэши целиком, пока это не удастся.
+ * <p>
+ * Подписка оформляется на ApplicationStartedEvent, до ApplicationRunner: прогрев
+ * OrderCache ждёт её (не дольше subscribe-timeout), и сбросы, пришедшие во время
+ * прогрева, доходят до кэша. Если подписка опоздала, первая же сбрасывает кэши целиком.
+ */
+@Component
+public class ClusterCacheBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCacheBus.class);
+
+    // Лимит payload в PostgreSQL — 8000 байт, оставляем запас на обёртку JSON
+    static final int MAX_PAYLOAD_BYTES = 7000;
+    private static final int MESSAGE_OVERHEAD_BYTES = 128;
+    private static final int ID_BYTES = 21;
+    // Если рассылка долго не проходит, точечные ключи заменяются полной очисткой
+    private static final int MAX_PENDING_KEYS = 10_000;
+    private static final int POLL_MILLIS = 500;
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+    // Без пула: закрытие соединения завершает сессию вместе с подпиской
+    private final DataSource listenerDataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OrderCache orderCache;
+    private final ProductCatalog productCatalog;
+    private final ProductSearchService productSearchService;
+    private final OrderBasketService orderBasketService;
+    private final boolean enabled;
+    private final String channel;
+    private final Duration reconnectDelay;
+    private final Duration subscribeTimeout;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Set<String> pendingOrderKeys = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingProductIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingOrderIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingClearOrders = new AtomicBoolean();
+
+    private volatile boolean running;
+    private Thread listener;
+    // Под монитором this: были ли уже подписки и не начал ли узел работу без подписки
+    private boolean subscribedBefore;
+    private boolean startedUnsubscribed;
+
+    public ClusterCacheBus(DataSourceProperties dataSourceProperties, JdbcTemplate jdbcTemplate,
+                           ObjectMapper objectMapper, OrderCache orderCache,
+                           ProductCatalog productCatalog,
+                           ProductSearchService productSearchService,
+                           OrderBasketService orderBasketService,
+                           @Value("${app.cache.cluster.enabled:true}") boolean enabled,
+                           @Value("${app.cache.cluster.channel:cache_invalidation}")
+                           String channel,
+                           @Value("${app.cache.cluster.reconnect-delay:5s}")
+                           Duration reconnectDelay,
+                           @Value("${app.cache.cluster.subscribe-timeout:10s}")
+                           Duration subscribeTimeout) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Недопустимое имя канала: " + channel);
+        }
+        this.listenerDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.orderCache = orderCache;
+        this.productCatalog = productCatalog;
+        this.productSearchService = productSearchService;
+        this.orderBasketService = orderBasketService;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.reconnectDelay = reconnectDelay;
+        this.subscribeTimeout = subscribeTimeout;
+    }
+
+    public void publishOrderKeys(Collection<String> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return;
+        }
+        pendingOrderKeys.addAll(keys);
+        if (pendingOrderKeys.size() > MAX_PENDING_KEYS) {
+            pendingClearOrders.set(true);
+            pendingOrderKeys.clear();
+        }
+    }
+
+    public void publishClearOrders() {
+        if (enabled) {
+            pendingClearOrders.set(true);
+        }
+    }
+
+    // Каталог и индекс названий на других узлах перечитывают изменённые товары из БД
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (enabled) {
+            pendingProductIds.addAll(event.getProductIds());
+        }
+    }
+
+    // Индекс товар → заказы на других узлах перечитывает состав изменённых заказов
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (enabled) {
+            pendingOrderIds.addAll(event.getOrderIds());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.cluster.flush-interval:100}")
+    public void flushPending() {
+        if (!enabled) {
+            return;
+        }
+        List<CacheInvalidationMessage> messages = drainPending();
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel,
+                        objectMapper.writeValueAsString(messages.get(i)));
+            } catch (JsonProcessingException | RuntimeException e) {
+                logger.warn("⚠️ Не удалось разослать инвалидацию кэшей, повторим: {}",
+                        e.getMessage());
+                messages.subList(i, messages.size()).forEach(this::requeue);
+                return;
+            }
+        }
+    }
+
+    List<CacheInvalidationMessage> drainPending() {
+        List<CacheInvalidationMessage> messages = new ArrayList<>();
+        CacheInvalidationMessage current = newMessage();
+        current.setClearOrders(pendingClearOrders.getAndSet(false));
+        int size = MESSAGE_OVERHEAD_BYTES;
+        for (Iterator<String> it = pendingOrderKeys.iterator(); it.hasNext(); ) {
+            String key = it.next();
+            it.remove();
+            int keyBytes = key.getBytes(StandardCharsets.UTF_8).length * 2 + 3;
+            if (size + keyBytes > MAX_PAYLOAD_BYTES && !current.getOrderKeys().isEmpty()) {
+                messages.add(current);
+                current = newMessage();
+                size = MESSAGE_OVERHEAD_BYTES;
+            }
+            current.getOrderKeys().add(key);
+            size += keyBytes;
+        }
+        for (Iterator<Long> it = pendingProductIds.iterator(); it.hasNext(); ) {
+            Long id = it.next();
+            it.remove();
+            if (size + ID_BYTES > MAX_PAYLOAD_BYTES) {
+                messages.add(current);
+                current = newMessage();
+                size = MESSAGE_OVERHEAD_BYTES;
+            }
+            current.getProductIds().add(id);
+            size += ID_BYTES;
+        }
+        for (Iterator<Long> it = pendingOrderIds.iterator(); it.hasNext(); ) {
+            Long id = it.next();
+            it.remove();
+            if (size + ID_BYTES > MAX_PAYLOAD_BYTES) {
+                messages.add(current);
+                current = newMessage();
+                size = MESSAGE_OVERHEAD_BYTES;
+            }
+            current.getOrderIds().add(id);
+            size += ID_BYTES;
+        }
+        if (current.isClearOrders() || !current.getOrderKeys().isEmpty()
+                || !current.getProductIds().isEmpty() || !current.getOrderIds().isEmpty()) {
+            messages.add(current);
+        }
+        return messages;
+    }
+
+    private CacheInvalidationMessage newMessage() {
+        CacheInvalidationMessage message = new CacheInvalidationMessage();
+        message.setNode(nodeId);
+        return message;
+    }
+
+    private void requeue(CacheInvalidationMessage message) {
+        if (message.isClearOrders()) {
+            pendingClearOrders.set(true);
+        }
+        publishOrderKeys(message.getOrderKeys());
+        pendingProductIds.addAll(message.getProductIds());
+        pendingOrderIds.addAll(message.getOrderIds());
+    }
+
+    /**
+     * Применяет пачку принятых уведомлений: свои пропускаются, ключи и id
+     * объединяются, так что каждый ключ сбрасывается один раз.
+     */
+    void apply(Collection<String> payloads) {
+        boolean clearOrders = false;
+        Set<String> orderKeys = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> orderIds = new HashSet<>();
+        for (String payload : payloads) {
+            CacheInvalidationMessage message;
+            try {
+                message = objectMapper.readValue(payload, CacheInvalidationMessage.class);
+            } catch (JsonProcessingException e) {
+                logger.warn("⚠️ Пропущено нечитаемое уведомление инвалидации: {}",
+                        e.getMessage());
+                continue;
+            }
+            if (nodeId.equals(message.getNode())) {
+                continue;
+            }
+            clearOrders |= message.isClearOrders();
+            orderKeys.addAll(message.getOrderKeys());
+            productIds.addAll(message.getProductIds());
+            orderIds.addAll(message.getOrderIds());
+        }
+
+        if (clearOrders) {
+            orderCache.clear();
+        } else {
+            orderKeys.forEach(orderCache::invalidate);
+        }
+        if (!productIds.isEmpty()) {
+            productCatalog.invalidate();
+            productSearchService.reindex(productIds);
+        }
+        if (!orderIds.isEmpty()) {
+            orderBasketService.refresh(orderIds);
+        }
+        if (clearOrders || !orderKeys.isEmpty() || !productIds.isEmpty() || !orderIds.isEmpty()) {
+            logger.info("📡 Инвалидация с других узлов: ключей {}, товаров {}, заказов {}, "
+                    + "полная очистка {}", orderKeys.size(), productIds.size(), orderIds.size(),
+                    clearOrders);
+        }
+    }
+
+    void flushLocalCaches() {
+        orderCache.clear();
+        productCatalog.invalidate();
+        productSearchService.rebuildIndex();
+        orderBasketService.rebuildIndex();
+        logger.info("🧹 Кэши сброшены после переподключения к каналу инвалидации");
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+        try {
+            if (!awaitSubscription(subscribeTimeout)) {
+                logger.warn("⚠️ Подписка на канал инвалидации не готова за {}, "
+                        + "после неё кэши будут сброшены целиком", subscribeTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ждёт первой подписки. Если не дождался, узел начинает работу без неё, и первая
+     * подписка считается пропустившей уведомления.
+     */
+    synchronized boolean awaitSubscription(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (!subscribedBefore) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    startedUnsubscribed = true;
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            startedUnsubscribed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Отмечает выполненный LISTEN. Возвращает, терялись ли уведомления до него:
+     * после разрыва или если узел уже работает без подписки.
+     */
+    synchronized boolean onSubscribed() {
+        boolean stale = subscribedBefore || startedUnsubscribed;
+        subscribedBefore = true;
+        notifyAll();
+        return stale;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = listenerDataSource.getConnection()) {
+                final PGConnection pg = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                logger.info("📡 Подписка на канал инвалидации '{}'", channel);
+                // Всё, что пришло, пока подписки не было, потеряно
+                boolean stale = onSubscribed();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+                    List<String> payloads = new ArrayList<>();
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            payloads.add(notification.getParameter());
+                        }
+                    }
+                    stale = deliver(payloads, stale);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("⚠️ Канал инвалидации недоступен, переподключение через {}: {}",
+                        reconnectDelay, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Применяет пачку либо, если уведомления уже терялись (stale), сбрасывает кэши
+     * целиком — это покрывает и саму пачку. Возвращает, остались ли кэши устаревшими.
+     */
+    boolean deliver(List<String> payloads, boolean stale) {
+        try {
+            if (stale) {
+                flushLocalCaches();
+            } else if (!payloads.isEmpty()) {
+                apply(payloads);
+            }
+            return false;
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Не удалось применить инвалидацию, кэши будут сброшены целиком: {}",
+                    e.getMessage());
+            return true;
+        }
+    }
+}
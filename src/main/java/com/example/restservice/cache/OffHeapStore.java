@@ -0,0 +1,159 @@
+package com.example.restservice.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Хранилище байтовых значений вне кучи. Память выделяется один раз direct-буферами
+ * и режется на блоки фиксированного размера; значение занимает несколько блоков,
+ * а в куче остаются только ключ, номера блоков и метаданные. Когда свободных блоков
+ * не хватает, вытесняются записи, которые дольше всех не читали.
+ */
+final class OffHeapStore<M> {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapStore.class);
+
+    private static final int SEGMENT_BYTES = 1 << 28;
+
+    private final int blockSize;
+    private final int blocksPerSegment;
+    private final int totalBlocks;
+    private final ByteBuffer[] segments;
+    private final int[] freeBlocks;
+    private int freeCount;
+    private final LinkedHashMap<String, Slot<M>> slots = new LinkedHashMap<>(16, 0.75f, true);
+
+    OffHeapStore(long capacityBytes, int blockSize) {
+        if (blockSize <= 0 || SEGMENT_BYTES % blockSize != 0) {
+            throw new IllegalArgumentException("Размер блока должен делить " + SEGMENT_BYTES);
+        }
+        long blocks = capacityBytes / blockSize;
+        if (blocks <= 0 || blocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Недопустимый объём off-heap: " + capacityBytes);
+        }
+        this.blockSize = blockSize;
+        this.blocksPerSegment = SEGMENT_BYTES / blockSize;
+        this.totalBlocks = (int) blocks;
+        this.segments = new ByteBuffer[(totalBlocks + blocksPerSegment - 1) / blocksPerSegment];
+        for (int i = 0; i < segments.length; i++) {
+            int segmentBlocks = Math.min(blocksPerSegment, totalBlocks - i * blocksPerSegment);
+            segments[i] = ByteBuffer.allocateDirect(segmentBlocks * blockSize);
+        }
+        this.freeBlocks = new int[totalBlocks];
+        for (int i = 0; i < totalBlocks; i++) {
+            freeBlocks[i] = totalBlocks - 1 - i;
+        }
+        this.freeCount = totalBlocks;
+    }
+
+    /**
+     * Сохраняет значение, вытесняя старые записи. false, если оно больше всего хранилища.
+     */
+    synchronized boolean put(String key, M meta, byte[] value) {
+        release(slots.remove(key));
+        int needed = (value.length + blockSize - 1) / blockSize;
+        if (needed > totalBlocks) {
+            return false;
+        }
+        Iterator<Map.Entry<String, Slot<M>>> eldest = slots.entrySet().iterator();
+        while (freeCount < needed) {
+            Map.Entry<String, Slot<M>> victim = eldest.next();
+            eldest.remove();
+            release(victim.getValue());
+            logger.info("🧹 Evicted off-heap cache entry for key '{}'", victim.getKey());
+        }
+        int[] blocks = new int[needed];
+        for (int i = 0; i < needed; i++) {
+            blocks[i] = freeBlocks[--freeCount];
+            int offset = i * blockSize;
+            segment(blocks[i]).put(position(blocks[i]), value, offset,
+                    Math.min(blockSize, value.length - offset));
+        }
+        slots.put(key, new Slot<>(meta, blocks, value.length));
+        return true;
+    }
+
+    synchronized Hit<M> get(String key) {
+        Slot<M> slot = slots.get(key);
+        if (slot == null) {
+            return null;
+        }
+        byte[] value = new byte[slot.length];
+        for (int i = 0; i < slot.blocks.length; i++) {
+            int offset = i * blockSize;
+            segment(slot.blocks[i]).get(position(slot.blocks[i]), value, offset,
+                    Math.min(blockSize, value.length - offset));
+        }
+        return new Hit<>(slot.meta, value);
+    }
+
+    synchronized boolean remove(String key) {
+        Slot<M> slot = slots.remove(key);
+        release(slot);
+        return slot != null;
+    }
+
+    // Удаляет запись, только если это всё ещё та же запись, что была прочитана
+    synchronized boolean remove(String key, M meta) {
+        Slot<M> slot = slots.get(key);
+        if (slot == null || slot.meta != meta) {
+            return false;
+        }
+        slots.remove(key);
+        release(slot);
+        return true;
+    }
+
+    synchronized void clear() {
+        slots.values().forEach(this::release);
+        slots.clear();
+    }
+
+    // Ключи от недавно читанных к давним
+    synchronized List<String> recentKeys(int limit) {
+        List<String> keys = new ArrayList<>(slots.keySet());
+        Collections.reverse(keys);
+        return keys.size() > limit ? keys.subList(0, limit) : keys;
+    }
+
+    synchronized int size() {
+        return slots.size();
+    }
+
+    synchronized long usedBytes() {
+        return (long) (totalBlocks - freeCount) * blockSize;
+    }
+
+    long capacityBytes() {
+        return (long) totalBlocks * blockSize;
+    }
+
+    private void release(Slot<M> slot) {
+        if (slot != null) {
+            for (int block : slot.blocks) {
+                freeBlocks[freeCount++] = block;
+            }
+        }
+    }
+
+    private ByteBuffer segment(int block) {
+        return segments[block / blocksPerSegment];
+    }
+
+    private int position(int block) {
+        return (block % blocksPerSegment) * blockSize;
+    }
+
+    record Hit<M>(M meta, byte[] data) {
+    }
+
+    private record Slot<M>(M meta, int[] blocks, int length) {
+    }
+}
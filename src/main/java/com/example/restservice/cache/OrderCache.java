@@ -1,67 +1,494 @@
 package com.example.restservice.cache;
 
+import com.example.restservice.exception.CacheLoadTimeoutException;
 import com.example.restservice.model.Order;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Interner;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
+/**
+ * Кэш заказов по названию товара.
+ * Хранит неизменяемые снимки заказов, снимки товаров интернированы и общие для всех записей.
+ * Чтение без глобальной блокировки, вытеснение W-TinyLFU по оценке занимаемой памяти,
+ * у каждой записи свой TTL со случайным разбросом, чтобы записи не истекали разом.
+ * Промахи по одному ключу схлопываются: в БД идёт только один загрузчик, остальные ждут его.
+ *
+ * <p>В режиме stale-while-revalidate запись старше soft-ttl продолжает отдаваться, пока
+ * фоновая задача её перезагружает. После ttl загрузка снова синхронная, но если БД
+ * не ответила, ещё stale-if-error отдаётся последнее удачное значение с пометкой stale.
+ *
+ * <p>Необязательный off-heap уровень держит сериализованные списки в direct-памяти
+ * со своим лимитом и вытеснением. Туда сразу попадают записи от off-heap-threshold
+ * и вытесненные из кучи по размеру; небольшая запись при чтении возвращается в кучу.
+ * Все переходы ключа между уровнями идут под блокировкой этого ключа в Caffeine.
+ */
 @Component
 public class OrderCache {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderCache.class);
 
-    private static final int MAX_ENTRIES = 1000;
+    private static final long REFRESH_RETRY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int OFF_HEAP_BLOCK_BYTES = 4096;
 
-    private final Map<String, List<Order>> cache;
+    private final Cache<String, Entry> cache;
+    private final ConcurrentMap<String, CompletableFuture<List<OrderSnapshot>>> loading =
+            new ConcurrentHashMap<>();
+    private final Interner<ProductSnapshot> productInterner = Interner.newWeakInterner();
+    private final Duration loadTimeout;
+    private final long softTtlNanos;
+    private final long hardTtlNanos;
+    private final double jitter;
+    private final Executor refreshExecutor;
+    private final Ticker ticker;
+    private final ExecutorService ownedExecutor;
+    private final long graceNanos;
+    private final OffHeapStore<Entry> offHeap;
+    private final long offHeapThreshold;
 
-    public OrderCache() {
-        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<String, List<Order>> eldest) {
-                boolean shouldRemove = size() > MAX_ENTRIES;
-                if (shouldRemove) {
-                    logger.info("🧹 Removed eldest cache entry for key '{}'", eldest.getKey());
-                }
-                return shouldRemove;
-            }
+    @Autowired
+    public OrderCache(@Value("${app.orders.cache.max-memory:64MB}") DataSize maxMemory,
+                      @Value("${app.orders.cache.ttl:30m}") Duration ttl,
+                      @Value("${app.orders.cache.ttl-jitter:0.2}") double jitter,
+                      @Value("${app.orders.cache.load-timeout:5s}") Duration loadTimeout,
+                      @Value("${app.orders.cache.stale-while-revalidate:true}") boolean swr,
+                      @Value("${app.orders.cache.soft-ttl:5m}") Duration softTtl,
+                      @Value("${app.orders.cache.stale-if-error:1h}") Duration staleIfError,
+                      @Value("${app.orders.cache.off-heap.enabled:false}") boolean offHeap,
+                      @Value("${app.orders.cache.off-heap.capacity:256MB}") DataSize capacity,
+                      @Value("${app.orders.cache.off-heap.threshold:1MB}") DataSize threshold) {
+        this(maxMemory.toBytes(), ttl, swr ? softTtl : ttl, jitter, loadTimeout,
+                swr ? staleIfError : Duration.ZERO, newRefreshExecutor(),
+                Ticker.systemTicker(), offHeap ? capacity.toBytes() : 0, threshold.toBytes());
+    }
+
+    OrderCache(long maxBytes, Duration ttl, Duration softTtl, double jitter,
+               Duration loadTimeout, Duration staleIfError, Executor refreshExecutor,
+               Ticker ticker, long offHeapCapacity, long offHeapThreshold) {
+        this.loadTimeout = loadTimeout;
+        this.hardTtlNanos = ttl.toNanos();
+        this.softTtlNanos = Math.min(softTtl.toNanos(), hardTtlNanos);
+        this.jitter = jitter;
+        this.refreshExecutor = refreshExecutor;
+        this.ticker = ticker;
+        this.ownedExecutor = refreshExecutor instanceof ExecutorService service ? service : null;
+        this.graceNanos = staleIfError.toNanos();
+        this.offHeap = offHeapCapacity > 0
+                ? new OffHeapStore<>(offHeapCapacity, OFF_HEAP_BLOCK_BYTES)
+                : null;
+        this.offHeapThreshold = offHeapThreshold;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) ->
+                        (int) Math.min(entry.estimatedBytes, Integer.MAX_VALUE))
+                .expireAfter(new UntilStaleIfErrorEnds(graceNanos))
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .recordStats()
+                .evictionListener((String key, Entry entry, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE && offHeap != null) {
+                        demote(key, entry);
+                    }
+                })
+                .removalListener((key, entry, cause) -> {
+                    if (cause.wasEvicted()) {
+                        logger.info("🧹 Evicted cache entry for key '{}' ({})", key, cause);
+                    }
+                })
+                .build();
+    }
+
+    private static ExecutorService newRefreshExecutor() {
+        return Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "order-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
         });
     }
 
-    @Scheduled(fixedRate = 30 * 60 * 1000)
-    public void autoClearCache() {
-        clear();
-        logger.info("🕒 Автоматически очищен кэш заказов по расписанию");
+    @PreDestroy
+    public void shutdown() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
     }
 
-    public List<Order> get(String key) {
+    public List<OrderSnapshot> get(String key) {
         logger.info("📥 Get from cache for key '{}'", key);
-        return cache.get(key);
+        Entry entry = lookup(key);
+        return entry != null && ticker.read() < entry.hardDeadline ? entry.orders : null;
+    }
+
+    /**
+     * Возвращает значение из кэша, а при промахе загружает его ровно одним вызовом loader.
+     * Синхронная загрузка идёт в потоке первого запроса (с его транзакцией и сессией),
+     * остальные ждут не дольше load-timeout. Ошибка загрузки получают все ожидающие,
+     * в кэш она не попадает; если есть прежнее значение в окне stale-if-error, отдаётся оно.
+     */
+    public CacheResult<List<OrderSnapshot>> getOrLoad(String key,
+                                                      Function<String, List<Order>> loader) {
+        long now = ticker.read();
+        Entry entry = lookup(key);
+        if (entry != null && now < entry.softDeadline) {
+            logger.info("👉 Данные взяты из кэша для ключа '{}'", key);
+            return entry.toResult(now, false);
+        }
+        if (entry != null && now < entry.hardDeadline) {
+            logger.info("♻️ Отдаём устаревающие данные для ключа '{}' и обновляем в фоне", key);
+            refreshAsync(key, entry, loader, now);
+            return entry.toResult(now, true);
+        }
+
+        try {
+            return CacheResult.fresh(loadSync(key, loader), Duration.ZERO);
+        } catch (RuntimeException e) {
+            if (entry == null) {
+                throw e;
+            }
+            logger.warn("⚠️ Не удалось обновить ключ '{}', отдаём последнее значение: {}",
+                    key, e.getMessage());
+            return entry.toResult(ticker.read(), true);
+        }
+    }
+
+    private List<OrderSnapshot> loadSync(String key, Function<String, List<Order>> loader) {
+        CompletableFuture<List<OrderSnapshot>> own = new CompletableFuture<>();
+        CompletableFuture<List<OrderSnapshot>> inFlight = loading.putIfAbsent(key, own);
+        if (inFlight != null) {
+            logger.info("⏳ Ожидаем уже идущую загрузку для ключа '{}'", key);
+            return await(key, inFlight);
+        }
+        Entry current = lookup(key);
+        if (current != null && ticker.read() < current.hardDeadline) {
+            loading.remove(key, own);
+            own.complete(current.orders);
+            return current.orders;
+        }
+        return runLoad(key, own, loader);
+    }
+
+    private void refreshAsync(String key, Entry entry, Function<String, List<Order>> loader,
+                              long now) {
+        if (now < entry.nextRefreshAt.get()) {
+            return;
+        }
+        CompletableFuture<List<OrderSnapshot>> own = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, own) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    runLoad(key, own, loader);
+                } catch (RuntimeException | Error e) {
+                    entry.nextRefreshAt.set(ticker.read() + REFRESH_RETRY_NANOS);
+                    logger.warn("⚠️ Фоновое обновление ключа '{}' не удалось: {}",
+                            key, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(key, own);
+            own.completeExceptionally(e);
+        }
+    }
+
+    private List<OrderSnapshot> runLoad(String key, CompletableFuture<List<OrderSnapshot>> own,
+                                        Function<String, List<Order>> loader) {
+        try {
+            List<OrderSnapshot> loaded = snapshot(loader.apply(key));
+            storeIfCurrent(key, own, loaded);
+            own.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, own);
+        }
+    }
+
+    // Если ключ инвалидировали во время загрузки, результат отдаём ждущим, но не кэшируем
+    private void storeIfCurrent(String key, CompletableFuture<List<OrderSnapshot>> own,
+                                List<OrderSnapshot> loaded) {
+        loading.computeIfPresent(key, (k, current) -> {
+            if (current == own) {
+                store(k, loaded);
+            }
+            return current;
+        });
+    }
+
+    private List<OrderSnapshot> await(String key,
+                                      CompletableFuture<List<OrderSnapshot>> inFlight) {
+        try {
+            return inFlight.get(loadTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new CacheLoadTimeoutException("Загрузка заказов для '" + key
+                    + "' не завершилась за " + loadTimeout.toMillis() + " мс");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheLoadTimeoutException("Ожидание загрузки заказов для '" + key
+                    + "' прервано");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
     }
 
     public void put(String key, List<Order> orders) {
-        cache.put(key, orders);
-        logger.info("📦 Cached {} orders for key '{}'", orders.size(), key);
+        store(key, snapshot(orders));
+    }
+
+    private List<OrderSnapshot> snapshot(List<Order> orders) {
+        return orders.stream()
+                .map(order -> OrderSnapshot.of(order, productInterner::intern))
+                .toList();
+    }
+
+    private void store(String key, List<OrderSnapshot> orders) {
+        long now = ticker.read();
+        double factor = jitter > 0
+                ? 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter)
+                : 1;
+        Entry entry = new Entry(orders, now, now + (long) (softTtlNanos * factor),
+                now + (long) (hardTtlNanos * factor));
+        if (offHeap == null || entry.estimatedBytes < offHeapThreshold) {
+            cache.asMap().compute(key, (k, previous) -> {
+                if (offHeap != null) {
+                    offHeap.remove(k);
+                }
+                return entry;
+            });
+            logger.info("📦 Cached {} orders for key '{}'", orders.size(), key);
+            return;
+        }
+        byte[] data = OrderSnapshotCodec.encode(orders);
+        cache.asMap().compute(key, (k, previous) -> {
+            if (!offHeap.put(k, entry.withoutOrders(), data)) {
+                logger.warn("⚠️ Список для ключа '{}' ({} байт) больше off-heap уровня, "
+                        + "не кэшируем", k, data.length);
+            }
+            return null;
+        });
+        logger.info("📦 Cached {} orders for key '{}' off-heap ({} bytes)",
+                orders.size(), key, data.length);
+    }
+
+    // Запись кучи берётся как есть, запись off-heap уровня разворачивается из байтов
+    private Entry lookup(String key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null || offHeap == null) {
+            return entry;
+        }
+        OffHeapStore.Hit<Entry> hit = offHeap.get(key);
+        if (hit == null) {
+            return null;
+        }
+        Entry meta = hit.meta();
+        if (ticker.read() >= meta.hardDeadline + graceNanos) {
+            offHeap.remove(key, meta);
+            return null;
+        }
+        Entry loaded = meta.withOrders(
+                OrderSnapshotCodec.decode(hit.data(), productInterner::intern));
+        if (meta.estimatedBytes < offHeapThreshold) {
+            promote(key, meta, loaded);
+        }
+        return loaded;
+    }
+
+    private void promote(String key, Entry meta, Entry loaded) {
+        cache.asMap().compute(key, (k, current) -> {
+            if (current != null) {
+                return current;
+            }
+            return offHeap.remove(k, meta) ? loaded : null;
+        });
+    }
+
+    // Вызывается Caffeine атомарно с вытеснением ключа, поэтому не гоняется с invalidate
+    private void demote(String key, Entry entry) {
+        if (offHeap.put(key, entry.withoutOrders(), OrderSnapshotCodec.encode(entry.orders))) {
+            logger.info("⬇️ Moved cache entry for key '{}' off-heap", key);
+        }
     }
 
     public void clear() {
-        cache.clear();
+        loading.clear();
+        cache.invalidateAll();
+        if (offHeap != null) {
+            offHeap.clear();
+        }
         logger.info("🧹 Cleared entire order cache");
     }
 
     public void invalidate(String key) {
-        List<Order> removed = cache.remove(key);
-        if (removed != null) {
+        loading.remove(key);
+        boolean[] removed = new boolean[1];
+        cache.asMap().compute(key, (k, current) -> {
+            removed[0] = current != null | (offHeap != null && offHeap.remove(k));
+            return null;
+        });
+        if (removed[0]) {
             logger.info("❌ Invalidated cache for key '{}'", key);
         }
     }
 
     public boolean contains(String key) {
-        return cache.containsKey(key);
+        return get(key) != null;
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize() + (offHeap != null ? offHeap.size() : 0);
+    }
+
+    /**
+     * Оценка памяти записи в куче в байтах, 0 если записи в куче нет.
+     */
+    public long estimatedBytes(String key) {
+        Entry entry = cache.getIfPresent(key);
+        return entry != null ? entry.estimatedBytes : 0;
+    }
+
+    public long estimatedTotalBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+
+    /**
+     * Самые востребованные ключи, сначала из кучи по частоте обращений W-TinyLFU,
+     * затем недавно читанные из off-heap уровня.
+     */
+    public List<String> hottestKeys(int limit) {
+        Set<String> keys = new LinkedHashSet<>(cache.policy().eviction()
+                .map(eviction -> eviction.hottest(limit).keySet())
+                .orElse(Set.of()));
+        if (offHeap != null && keys.size() < limit) {
+            keys.addAll(offHeap.recentKeys(limit - keys.size()));
+        }
+        return List.copyOf(keys);
+    }
+
+    public long offHeapUsedBytes() {
+        return offHeap != null ? offHeap.usedBytes() : 0;
+    }
+
+    // Общие снимки товаров считаются в каждой записи, где встречаются: оценка сверху,
+    // зато запись не становится «дешевле» оттого, что её товары держит кто-то ещё
+    static long estimateBytes(List<OrderSnapshot> orders) {
+        long bytes = OrderSnapshot.listBytes(orders.size());
+        Set<ProductSnapshot> products = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (OrderSnapshot order : orders) {
+            bytes += order.estimatedBytes();
+            products.addAll(order.products());
+        }
+        for (ProductSnapshot product : products) {
+            bytes += product.estimatedBytes();
+        }
+        return bytes;
     }
-}
 
+    private static final class Entry {
+
+        // null у метаданных записи, которая лежит в off-heap уровне
+        private final List<OrderSnapshot> orders;
+        private final long estimatedBytes;
+        private final long loadedAt;
+        private final long softDeadline;
+        private final long hardDeadline;
+        // Общий для всех представлений записи, чтобы откат обновления не терялся
+        private final AtomicLong nextRefreshAt;
+
+        private Entry(List<OrderSnapshot> orders, long loadedAt, long softDeadline,
+                      long hardDeadline) {
+            this(orders, estimateBytes(orders), loadedAt, softDeadline, hardDeadline,
+                    new AtomicLong());
+        }
+
+        private Entry(List<OrderSnapshot> orders, long estimatedBytes, long loadedAt,
+                      long softDeadline, long hardDeadline, AtomicLong nextRefreshAt) {
+            this.orders = orders;
+            this.estimatedBytes = estimatedBytes;
+            this.loadedAt = loadedAt;
+            this.softDeadline = softDeadline;
+            this.hardDeadline = hardDeadline;
+            this.nextRefreshAt = nextRefreshAt;
+        }
+
+        private Entry withOrders(List<OrderSnapshot> orders) {
+            return new Entry(orders, estimatedBytes, loadedAt, softDeadline, hardDeadline,
+                    nextRefreshAt);
+        }
+
+        private Entry withoutOrders() {
+            return withOrders(null);
+        }
+
+        private CacheResult<List<OrderSnapshot>> toResult(long now, boolean stale) {
+            Duration age = Duration.ofNanos(Math.max(0, now - loadedAt));
+            return stale ? CacheResult.stale(orders, age) : CacheResult.fresh(orders, age);
+        }
+    }
+
+    // Caffeine держит запись до конца окна stale-if-error; свежесть проверяется по дедлайнам
+    private static final class UntilStaleIfErrorEnds implements Expiry<String, Entry> {
+
+        private final long graceNanos;
+
+        private UntilStaleIfErrorEnds(long graceNanos) {
+            this.graceNanos = graceNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return Math.max(0, entry.hardDeadline + graceNanos - currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.event.ChangeType;
+import com.example.restservice.event.OrderChangedEvent;
+import com.example.restservice.event.ProductChangedEvent;
+import com.example.restservice.repository.OrderRepository;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Точечно сбрасывает записи OrderCache после фиксации изменений
+ * и передаёт те же ключи остальным узлам через ClusterCacheBus.
+ */
+@Component
+public class OrderCacheInvalidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCacheInvalidator.class);
+
+    private final OrderCache orderCache;
+    private final OrderRepository orderRepository;
+    private final ClusterCacheBus clusterCacheBus;
+
+    public OrderCacheInvalidator(OrderCache orderCache, OrderRepository orderRepository,
+                                 ClusterCacheBus clusterCacheBus) {
+        this.orderCache = orderCache;
+        this.orderRepository = orderRepository;
+        this.clusterCacheBus = clusterCacheBus;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        event.getProductNameKeys().forEach(orderCache::invalidate);
+        clusterCacheBus.publishOrderKeys(event.getProductNameKeys());
+        logger.info("❌ Заказы {} {}: сброшено ключей кэша {}", describe(event.getOrderIds()),
+                event.getType(), event.getProductNameKeys().size());
+    }
+
+    // Новый товар ещё не входит в заказы, а удалить можно только неиспользуемый,
+    // поэтому закэшированные списки меняет лишь правка товара: его новое название
+    // и цена видны в каждом заказе с ним, под ключами всех товаров этих заказов
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ChangeType.UPDATED || event.getProductIds().isEmpty()) {
+            return;
+        }
+        Set<String> keys = new HashSet<>(event.getPreviousNameKeys());
+        keys.addAll(orderRepository.findNameKeysOrderedWith(event.getProductIds()));
+        keys.forEach(orderCache::invalidate);
+        clusterCacheBus.publishOrderKeys(keys);
+        logger.info("❌ Изменено товаров {}: сброшено ключей кэша заказов {}",
+                event.getProductIds().size(), keys.size());
+    }
+
+    // Порция массового создания может содержать тысячи id, в лог идёт только их число
+    private static String describe(List<Long> orderIds) {
+        return orderIds.size() == 1 ? orderIds.get(0).toString() : orderIds.size() + " шт.";
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.service.OrderService;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Тёплый старт OrderCache. Горячие ключи периодически и при остановке пишутся в файл,
+ * а при запуске заново загружаются из БД параллельно и с ограничением скорости.
+ * ApplicationRunner выполняется до ApplicationReadyEvent, так что экземпляр
+ * объявляет готовность уже с прогретым кэшем (но не позже warm-start.timeout).
+ * ClusterCacheBus к этому времени уже подписан: сбросы с других узлов во время
+ * прогрева не теряются.
+ */
+@Component
+public class OrderCacheWarmer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCacheWarmer.class);
+
+    private final OrderCache orderCache;
+    private final OrderService orderService;
+    private final boolean enabled;
+    private final Path file;
+    private final int maxKeys;
+    private final int parallelism;
+    private final double ratePerSecond;
+    private final Duration timeout;
+
+    public OrderCacheWarmer(OrderCache orderCache, OrderService orderService,
+                            @Value("${app.orders.cache.warm-start.enabled:true}") boolean enabled,
+                            @Value("${app.orders.cache.warm-start.file:data/order-cache-keys.txt}")
+                            Path file,
+                            @Value("${app.orders.cache.warm-start.max-keys:1000}") int maxKeys,
+                            @Value("${app.orders.cache.warm-start.parallelism:4}") int parallelism,
+                            @Value("${app.orders.cache.warm-start.rate:20}") double ratePerSecond,
+                            @Value("${app.orders.cache.warm-start.timeout:60s}") Duration timeout) {
+        this.orderCache = orderCache;
+        this.orderService = orderService;
+        this.enabled = enabled;
+        this.file = file;
+        this.maxKeys = maxKeys;
+        this.parallelism = parallelism;
+        this.ratePerSecond = ratePerSecond;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Загружает сохранённые ключи в порядке убывания востребованности.
+     * Значения берутся из БД заново, поэтому изменения за время простоя не теряются;
+     * ключ, уже загруженный живым запросом или сброшенный во время загрузки, не трогается.
+     */
+    void warmUp() {
+        List<String> keys = readKeys();
+        if (keys.isEmpty()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + timeout.toNanos();
+        RateLimiter limiter = new RateLimiter(ratePerSecond);
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "order-cache-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (String key : keys) {
+                pool.execute(() -> {
+                    try {
+                        if (System.nanoTime() > deadline || orderCache.contains(key)) {
+                            skipped.incrementAndGet();
+                            return;
+                        }
+                        limiter.acquire();
+                        orderService.findOrdersByProductName(key);
+                        loaded.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        skipped.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        logger.warn("⚠️ Не удалось прогреть ключ '{}': {}", key, e.getMessage());
+                    }
+                });
+            }
+            pool.shutdown();
+            if (!pool.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                logger.warn("⚠️ Прогрев кэша заказов не уложился в {}, продолжаем без него",
+                        timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        logger.info("🔥 Прогрев кэша заказов за {} мс: загружено {}, пропущено {}, ошибок {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt),
+                loaded.get(), skipped.get(), failed.get());
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.cache.warm-start.save-interval:300000}",
+            initialDelayString = "${app.orders.cache.warm-start.save-interval:300000}")
+    public void saveHotKeys() {
+        if (!enabled) {
+            return;
+        }
+        List<String> keys = orderCache.hottestKeys(maxKeys);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "order-cache-keys", ".tmp");
+            Files.write(tmp, keys, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("💾 Сохранено горячих ключей кэша заказов: {}", keys.size());
+        } catch (IOException e) {
+            logger.warn("⚠️ Не удалось сохранить ключи кэша заказов в {}: {}",
+                    file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        saveHotKeys();
+    }
+
+    private List<String> readKeys() {
+        if (!Files.isReadable(file)) {
+            return List.of();
+        }
+        try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> !line.isBlank()).distinct().limit(maxKeys).toList();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("⚠️ Не удалось прочитать ключи кэша заказов из {}: {}",
+                    file, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static final class RateLimiter {
+
+        private final long intervalNanos;
+        private long next;
+
+        private RateLimiter(double ratePerSecond) {
+            this.intervalNanos = ratePerSecond > 0
+                    ? (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond)
+                    : 0;
+            this.next = System.nanoTime();
+        }
+
+        private void acquire() throws InterruptedException {
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(now, next);
+                next = slot + intervalNanos;
+                wait = slot - now;
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.model.Order;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Неизменяемый снимок заказа в кэше: поля заказа и ссылки на общие снимки товаров.
+ * В отличие от сущности не держит прокси Hibernate и безопасно отдаётся из разных потоков.
+ */
+public record OrderSnapshot(Long id, String customerName, BigDecimal totalAmount,
+                            LocalDateTime orderDate, List<ProductSnapshot> products) {
+
+    private static final int BIG_DECIMAL_BYTES = 40;
+    // LocalDateTime вместе с LocalDate и LocalTime
+    private static final int DATE_TIME_BYTES = 72;
+    private static final int LONG_BYTES = 16;
+
+    public OrderSnapshot {
+        products = List.copyOf(products);
+    }
+
+    public static OrderSnapshot of(Order order, UnaryOperator<ProductSnapshot> interner) {
+        List<ProductSnapshot> products = order.getProducts().stream()
+                .map(product -> interner.apply(ProductSnapshot.of(product)))
+                .sorted(Comparator.comparing(ProductSnapshot::id,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+        return new OrderSnapshot(order.getId(), order.getCustomerName(),
+                order.getTotalAmount(), order.getOrderDate(), products);
+    }
+
+    /**
+     * Память самого снимка без товаров: они общие и считаются на уровне записи кэша.
+     */
+    public long estimatedBytes() {
+        return ProductSnapshot.align(ProductSnapshot.OBJECT_HEADER_BYTES
+                        + 5 * ProductSnapshot.REFERENCE_BYTES)
+                + (id != null ? LONG_BYTES : 0)
+                + ProductSnapshot.stringBytes(customerName)
+                + (totalAmount != null ? BIG_DECIMAL_BYTES : 0)
+                + (orderDate != null ? DATE_TIME_BYTES : 0)
+                + listBytes(products.size());
+    }
+
+    static long listBytes(int size) {
+        return ProductSnapshot.align(ProductSnapshot.OBJECT_HEADER_BYTES
+                        + ProductSnapshot.REFERENCE_BYTES)
+                + ProductSnapshot.align(ProductSnapshot.OBJECT_HEADER_BYTES + 4
+                        + (long) size * ProductSnapshot.REFERENCE_BYTES);
+    }
+}
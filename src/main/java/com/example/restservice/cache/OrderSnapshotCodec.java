@@ -0,0 +1,139 @@
+package com.example.restservice.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Компактная бинарная форма списка снимков заказов для off-heap уровня кэша.
+ */
+final class OrderSnapshotCodec {
+
+    private OrderSnapshotCodec() {
+    }
+
+    static byte[] encode(List<OrderSnapshot> orders) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(orders.size());
+            for (OrderSnapshot order : orders) {
+                writeLong(out, order.id());
+                writeString(out, order.customerName());
+                writeDecimal(out, order.totalAmount());
+                writeDateTime(out, order.orderDate());
+                out.writeInt(order.products().size());
+                for (ProductSnapshot product : order.products()) {
+                    writeLong(out, product.id());
+                    writeString(out, product.name());
+                    writeDecimal(out, product.price());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<OrderSnapshot> decode(byte[] data, UnaryOperator<ProductSnapshot> interner) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int count = in.readInt();
+            List<OrderSnapshot> orders = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Long id = readLong(in);
+                String customerName = readString(in);
+                BigDecimal totalAmount = readDecimal(in);
+                LocalDateTime orderDate = readDateTime(in);
+                int productCount = in.readInt();
+                List<ProductSnapshot> products = new ArrayList<>(productCount);
+                for (int j = 0; j < productCount; j++) {
+                    products.add(interner.apply(new ProductSnapshot(readLong(in),
+                            readString(in), readDecimal(in))));
+                }
+                orders.add(new OrderSnapshot(id, customerName, totalAmount, orderDate, products));
+            }
+            return List.copyOf(orders);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    // writeUTF ограничен 64 КБ, поэтому длина пишется отдельно
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeShort(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int length = in.readShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.readInt());
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.event.ProductChangedEvent;
+import com.example.restservice.model.Product;
+import com.example.restservice.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+@Component
+public class ProductCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalog.class);
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile ProductCatalogSnapshot snapshot;
+
+    public ProductCatalog(ProductRepository productRepository, ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public ProductCatalogSnapshot current() {
+        ProductCatalogSnapshot local = snapshot;
+        if (local != null && local.getVersion() == version.get()) {
+            return local;
+        }
+        synchronized (this) {
+            local = snapshot;
+            long target = version.get();
+            if (local == null || local.getVersion() != target) {
+                local = build(target);
+                snapshot = local;
+            }
+            return local;
+        }
+    }
+
+    // Снимок пересобирается только после фиксации транзакции, иначе читатель
+    // успеет закэшировать данные, которые ещё могут откатиться.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        long next = version.incrementAndGet();
+        logger.info("❌ Product catalog snapshot invalidated, next version {}", next);
+    }
+
+    private ProductCatalogSnapshot build(long target) {
+        List<Product> products = productRepository.findAll().stream()
+                .map(Product::copyOf)
+                .toList();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(products);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            logger.info("📦 Built product catalog snapshot v{} with {} products",
+                    target, products.size());
+            return new ProductCatalogSnapshot(target, products, json, etag);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
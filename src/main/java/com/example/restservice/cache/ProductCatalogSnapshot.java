@@ -0,0 +1,54 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.model.Product;
+import java.util.List;
+
+/**
+ * Неизменяемый снимок каталога товаров: список, готовый JSON и сильный ETag.
+ */
+public final class ProductCatalogSnapshot {
+
+    private final long version;
+    private final List<Product> products;
+    private final byte[] json;
+    private final String etag;
+
+    public ProductCatalogSnapshot(long version, List<Product> products, byte[] json, String etag) {
+        this.version = version;
+        this.products = List.copyOf(products);
+        this.json = json;
+        this.etag = etag;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Тело ответа GET /products. Массив не копируется, поэтому его нельзя изменять.
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.model.Product;
+import java.math.BigDecimal;
+
+/**
+ * Неизменяемый снимок товара в кэше. Одинаковые снимки интернируются,
+ * так что все закэшированные заказы ссылаются на один экземпляр.
+ */
+public record ProductSnapshot(Long id, String name, BigDecimal price) {
+
+    // Оценки для 64-битной JVM со сжатыми ссылками
+    static final int OBJECT_HEADER_BYTES = 12;
+    static final int REFERENCE_BYTES = 4;
+    private static final int BIG_DECIMAL_BYTES = 40;
+    private static final int LONG_BYTES = 16;
+
+    public static ProductSnapshot of(Product product) {
+        return new ProductSnapshot(product.getId(), product.getName(), product.getPrice());
+    }
+
+    public long estimatedBytes() {
+        return align(OBJECT_HEADER_BYTES + 3 * REFERENCE_BYTES)
+                + (id != null ? LONG_BYTES : 0)
+                + stringBytes(name)
+                + (price != null ? BIG_DECIMAL_BYTES : 0);
+    }
+
+    // Компактные строки: латиница по байту на символ, остальное по два
+    static long stringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c <= 0xFF);
+        long chars = (long) value.length() * (latin1 ? 1 : 2);
+        return align(OBJECT_HEADER_BYTES + 2 * REFERENCE_BYTES + 4)
+                + align(OBJECT_HEADER_BYTES + 4 + chars);
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
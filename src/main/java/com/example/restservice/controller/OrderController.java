@@ -1,14 +1,45 @@
 package com.example.restservice.controller;
 
+import com.example.restservice.analytics.StatsBucket;
+import com.example.restservice.cache.CacheResult;
+import com.example.restservice.cache.OrderSnapshot;
+import com.example.restservice.dto.BulkOrderReportDto;
+import com.example.restservice.dto.CursorPageDto;
+import com.example.restservice.dto.IngestTicketDto;
+import com.example.restservice.dto.OrderBasketPageDto;
+import com.example.restservice.dto.OrderLinesPatchDto;
+import com.example.restservice.dto.OrderListDto;
+import com.example.restservice.dto.OrderPageQuery;
+import com.example.restservice.dto.OrderStatsBucketDto;
+import com.example.restservice.dto.OrderSummaryDto;
+import com.example.restservice.dto.ProductStatsDto;
+import com.example.restservice.ingest.OrderIngestQueue;
 import com.example.restservice.model.Order;
+import com.example.restservice.service.OrderBasketService;
+import com.example.restservice.service.OrderBulkService;
+import com.example.restservice.service.OrderLineService;
 import com.example.restservice.service.OrderService;
+import com.example.restservice.service.OrderStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -19,14 +50,30 @@ import org.springframework.web.bind.annotation.RestController;
 
 
 @RestController
+@Validated
 @RequestMapping("/orders")
 @Tag(name = "Заказы", description = "Операции с заказами")
 public class OrderController {
 
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     private final OrderService orderService;
+    private final OrderBasketService orderBasketService;
+    private final OrderStatsService orderStatsService;
+    private final OrderBulkService orderBulkService;
+    private final OrderIngestQueue orderIngestQueue;
+    private final OrderLineService orderLineService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderBasketService orderBasketService,
+                           OrderStatsService orderStatsService,
+                           OrderBulkService orderBulkService, OrderIngestQueue orderIngestQueue,
+                           OrderLineService orderLineService) {
         this.orderService = orderService;
+        this.orderBasketService = orderBasketService;
+        this.orderStatsService = orderStatsService;
+        this.orderBulkService = orderBulkService;
+        this.orderIngestQueue = orderIngestQueue;
+        this.orderLineService = orderLineService;
     }
 
     @GetMapping
@@ -35,10 +82,114 @@ public class OrderController {
         return orderService.getAllOrders();
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Получить страницу заказов",
+            description = "Keyset-пагинация по id или дате заказа с фильтрами по клиенту и "
+                    + "периоду. Товары страницы загружаются одним запросом")
+    public CursorPageDto<Order> getOrdersPage(@Valid @ParameterObject OrderPageQuery query) {
+        return orderService.getOrdersPage(query);
+    }
+
+    @GetMapping("/summary")
+    @Operation(summary = "Получить краткие сведения о заказах",
+            description = "Только id, клиент, дата, сумма и число товаров, без загрузки товаров. "
+                    + "Следующая страница запрашивается с afterId = id последней строки")
+    public List<OrderSummaryDto> getOrderSummaries(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "100")
+            @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+            @Max(value = 1000, message = "Размер страницы не может превышать 1000") int size) {
+        return orderService.getOrderSummaries(afterId, size);
+    }
+
     @GetMapping("/by-product-name")
-    @Operation(summary = "Получить заказы по названию продукта")
-    public List<Order> getOrdersByProductName(@RequestParam String productName) {
-        return orderService.findOrdersByProductName(productName);
+    @Operation(summary = "Получить заказы по названию продукта",
+            description = "Ответ может прийти из кэша: возраст данных в заголовке Age, "
+                    + "устаревшие данные помечены заголовком Warning: 110")
+    public ResponseEntity<List<OrderSnapshot>> getOrdersByProductName(
+            @RequestParam String productName) {
+        CacheResult<List<OrderSnapshot>> result = orderService.findOrdersByProductName(productName);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(result.getAge().toSeconds()));
+        if (result.isStale()) {
+            response.header(HttpHeaders.WARNING, STALE_WARNING);
+        }
+        return response.body(result.getValue());
+    }
+
+    @GetMapping("/by-product-name/page")
+    @Operation(summary = "Получить страницу заказов по названию продукта",
+            description = "Заказы упорядочены по id. Следующая страница запрашивается "
+                    + "с afterId = id последнего заказа")
+    public List<Order> getOrdersByProductNamePage(
+            @RequestParam String productName,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "50")
+            @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+            @Max(value = 500, message = "Размер страницы не может превышать 500") int size) {
+        return orderService.findOrdersByProductName(productName, afterId, size);
+    }
+
+    @GetMapping("/by-products")
+    @Operation(summary = "Найти заказы по составу корзины",
+            description = "Заказы со всеми товарами из all, хотя бы одним из any и ни одним "
+                    + "из none; нужно задать all или any. total — число всех найденных "
+                    + "заказов, следующая страница запрашивается с afterId = nextAfterId")
+    public OrderBasketPageDto getOrdersByProducts(
+            @RequestParam(defaultValue = "")
+            @Size(max = 100, message = "Не больше 100 товаров в all") List<Long> all,
+            @RequestParam(defaultValue = "")
+            @Size(max = 100, message = "Не больше 100 товаров в any") List<Long> any,
+            @RequestParam(defaultValue = "")
+            @Size(max = 100, message = "Не больше 100 товаров в none") List<Long> none,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "50")
+            @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+            @Max(value = 500, message = "Размер страницы не может превышать 500") int size) {
+        return orderBasketService.findOrders(all, any, none, afterId, size);
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Число заказов и выручка по периодам",
+            description = "Из агрегатов в памяти, без обращения к заказам. Период [from, to), "
+                    + "обе границы необязательны; шаг — day, week или month")
+    public List<OrderStatsBucketDto> getOrderStats(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day")
+            @Pattern(regexp = "day|week|month", message = "Шаг: day, week или month")
+            String bucket) {
+        return orderStatsService.getOrderStats(from, to,
+                StatsBucket.valueOf(bucket.toUpperCase(Locale.ROOT)));
+    }
+
+    @GetMapping("/stats/products/top")
+    @Operation(summary = "Товары с наибольшей выручкой",
+            description = "Выручка товара — его текущая цена, умноженная на число заказов "
+                    + "с ним за период [from, to). Без границ ответ берётся из готового "
+                    + "рейтинга; с границами обходятся дни периода у каждого товара")
+    public List<ProductStatsDto> getTopProducts(
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = "Нужно запросить хотя бы один товар")
+            @Max(value = 100, message = "Не больше 100 товаров") int limit,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return orderStatsService.getTopProducts(limit, from, to);
+    }
+
+    @GetMapping("/stats/products/{productId}")
+    @Operation(summary = "Число заказов и выручка товара за период [from, to)")
+    public ProductStatsDto getProductStats(
+            @PathVariable Long productId,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return orderStatsService.getProductStats(productId, from, to);
     }
 
     @DeleteMapping("/cache/clear")
@@ -62,6 +213,37 @@ public class OrderController {
         return orderService.createOrder(order);
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Создать несколько заказов",
+            description = "Товары всего пакета читаются одним запросом, заказы вставляются "
+                    + "JDBC-пакетами. Результат на каждый заказ в порядке запроса: id и сумма "
+                    + "либо ошибки; некорректные заказы не мешают сохранить остальные")
+    public BulkOrderReportDto createOrdersBulk(@Valid @RequestBody OrderListDto request) {
+        return orderBulkService.createOrders(request.getOrders());
+    }
+
+    @PostMapping("/async")
+    @Operation(summary = "Принять заказ асинхронно",
+            description = "Заказ записывается в журнал приёма и встаёт в очередь, ответ 202 "
+                    + "с билетом. Заказы фиксируются группами одной транзакцией; статус — "
+                    + "GET /orders/async/{ticket}. При заполненной очереди ответ 429")
+    public ResponseEntity<IngestTicketDto> acceptOrder(@Valid @RequestBody Order order) {
+        IngestTicketDto ticket = orderIngestQueue.accept(order);
+        return ResponseEntity.accepted()
+                .location(URI.create("/orders/async/" + ticket.getTicket()))
+                .body(ticket);
+    }
+
+    @GetMapping("/async/{ticket}")
+    @Operation(summary = "Статус асинхронно принятого заказа",
+            description = "QUEUED, COMMITTED с id заказа или REJECTED с ошибками. "
+                    + "Исход хранится app.orders.ingest.status-ttl")
+    public ResponseEntity<IngestTicketDto> getIngestTicket(@PathVariable UUID ticket) {
+        return orderIngestQueue.getTicket(ticket)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Обновить заказ по ID")
     public ResponseEntity<Order> updateOrder(@PathVariable Long id,
@@ -84,7 +266,7 @@ public class OrderController {
     @Operation(summary = "Добавить продукт в заказ")
     public ResponseEntity<Order> addProductToOrder(@PathVariable Long orderId,
                                                    @PathVariable Long productId) {
-        return orderService.addProductToOrder(orderId, productId)
+        return orderLineService.addProduct(orderId, productId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -93,8 +275,20 @@ public class OrderController {
     @Operation(summary = "Удалить продукт из заказа")
     public ResponseEntity<Order> removeProductFromOrder(@PathVariable Long orderId,
                                                         @PathVariable Long productId) {
-        return orderService.removeProductFromOrder(orderId, productId)
+        return orderLineService.removeProduct(orderId, productId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PatchMapping("/{id}/lines")
+    @Operation(summary = "Изменить состав заказа",
+            description = "Список операций add/remove применяется одной транзакцией. "
+                    + "Для повторяющегося товара действует последняя операция; "
+                    + "если хоть одного добавляемого товара нет — 400 и заказ не меняется")
+    public ResponseEntity<Order> editOrderLines(@PathVariable Long id,
+                                                @Valid @RequestBody OrderLinesPatchDto request) {
+        return orderLineService.applyLines(id, request.getOperations())
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
-}
\ No newline at end of file
+}
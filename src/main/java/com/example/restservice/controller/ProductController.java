@@ -1,15 +1,33 @@
 package com.example.restservice.controller;
 
+import com.example.restservice.cache.ProductCatalogSnapshot;
+import com.example.restservice.dto.BulkDeleteReportDto;
+import com.example.restservice.dto.BulkUpdateReportDto;
+import com.example.restservice.dto.CursorPageDto;
+import com.example.restservice.dto.ImportProgressDto;
 import com.example.restservice.dto.ProductDto;
+import com.example.restservice.dto.ProductIdsDto;
+import com.example.restservice.dto.ProductImportReportDto;
 import com.example.restservice.dto.ProductListDto;
+import com.example.restservice.dto.ProductPageQuery;
+import com.example.restservice.dto.ProductUpdateListDto;
 import com.example.restservice.model.Product;
+import com.example.restservice.service.ProductImportService;
+import com.example.restservice.service.ProductSearchService;
 import com.example.restservice.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,7 +36,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -28,17 +48,58 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Товары", description = "Операции с продуктами")
 public class ProductController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final ProductService productService;
+    private final ProductSearchService productSearchService;
+    private final ProductImportService productImportService;
 
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ProductSearchService productSearchService,
+                             ProductImportService productImportService) {
         this.productService = productService;
+        this.productSearchService = productSearchService;
+        this.productImportService = productImportService;
     }
 
     @GetMapping
-    @Operation(summary = "Получить список всех товаров")
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    @Operation(summary = "Получить список всех товаров",
+            description = "Отдаёт готовый снимок каталога; при совпадении If-None-Match "
+                    + "возвращает 304 без обращения к БД")
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            String ifNoneMatch) {
+        ProductCatalogSnapshot snapshot = productService.getCatalogSnapshot();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getJson());
+    }
+
+    @GetMapping("/page")
+    @Operation(summary = "Получить страницу товаров",
+            description = "Keyset-пагинация с фильтрами по префиксу названия и диапазону цен. "
+                    + "Для следующей страницы передайте nextCursor из предыдущего ответа")
+    public CursorPageDto<Product> getProductsPage(@Valid @ParameterObject ProductPageQuery query) {
+        return productService.getProductsPage(query);
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Подсказки по названию товара",
+            description = "Сначала товары, название которых начинается с запроса, "
+                    + "затем содержащие его")
+    public List<Product> suggestProducts(
+            @Parameter(description = "Начало или часть названия") @RequestParam String q,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = "Количество подсказок должно быть не меньше 1")
+            @Max(value = 50, message = "Количество подсказок не может превышать 50") int limit) {
+        return productSearchService.suggest(q, limit);
     }
 
     @PostMapping
@@ -65,6 +126,23 @@ public class ProductController {
         return ResponseEntity.notFound().build();
     }
 
+    @PutMapping("/bulk")
+    @Operation(summary = "Обновить несколько товаров",
+            description = "Применяет изменения названий и цен в одной транзакции и затем "
+                    + "одним UPDATE сдвигает суммы затронутых заказов на разницу цен")
+    public BulkUpdateReportDto updateProductsBulk(
+            @Valid @RequestBody ProductUpdateListDto request) {
+        return productService.updateProducts(request.getProducts());
+    }
+
+    @DeleteMapping("/bulk")
+    @Operation(summary = "Удалить несколько товаров",
+            description = "Удаляет товары, не входящие в заказы. В ответе перечислены удалённые "
+                    + "id, id, заблокированные заказами, и ненайденные id")
+    public BulkDeleteReportDto deleteProductsBulk(@Valid @RequestBody ProductIdsDto request) {
+        return productService.deleteProducts(request.getIds());
+    }
+
     @Operation(summary = "Создание нескольких товаров (bulk)",
             description = "Создает несколько товаров и возвращает их данные")
     @PostMapping("/bulk")
@@ -77,6 +155,37 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProducts);
     }
 
+    @Operation(summary = "Массовая загрузка товаров порциями",
+            description = "Проверяет каждый товар отдельно, записывает корректные пакетными "
+                    + "INSERT и фиксирует по порциям. В отчёте по каждой порции перечислены "
+                    + "отклонённые позиции")
+    @PostMapping("/bulk/chunked")
+    public ProductImportReportDto importProductsChunked(
+            @RequestBody List<ProductDto> products) {
+        return productImportService.importProducts(products);
+    }
+
+    @Operation(summary = "Потоковый импорт товаров из NDJSON",
+            description = "Каждая строка тела — отдельный JSON-объект товара. Тело читается "
+                    + "построчно и не загружается в память целиком")
+    @PostMapping(value = "/import", consumes = NDJSON)
+    public ProductImportReportDto importProductsNdjson(InputStream body) throws IOException {
+        return productImportService.importNdjson(body);
+    }
+
+    @Operation(summary = "Потоковый импорт товаров из CSV",
+            description = "Первая строка — заголовок с колонками name и price")
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ProductImportReportDto importProductsCsv(InputStream body) throws IOException {
+        return productImportService.importCsv(body);
+    }
+
+    @GetMapping("/import/active")
+    @Operation(summary = "Прогресс выполняющихся импортов товаров")
+    public List<ImportProgressDto> getActiveImports() {
+        return productImportService.getActiveImports();
+    }
+
 }
 
 
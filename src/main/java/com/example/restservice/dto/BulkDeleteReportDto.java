@@ -0,0 +1,43 @@
+package com.example.restservice.dto;
+
+import java.util.List;
+
+public class BulkDeleteReportDto {
+
+    private List<Long> deleted;
+    private List<Long> blocked;
+    private List<Long> notFound;
+
+    public BulkDeleteReportDto() {
+    }
+
+    public BulkDeleteReportDto(List<Long> deleted, List<Long> blocked, List<Long> notFound) {
+        this.deleted = deleted;
+        this.blocked = blocked;
+        this.notFound = notFound;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public List<Long> getBlocked() {
+        return blocked;
+    }
+
+    public void setBlocked(List<Long> blocked) {
+        this.blocked = blocked;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Long> notFound) {
+        this.notFound = notFound;
+    }
+}
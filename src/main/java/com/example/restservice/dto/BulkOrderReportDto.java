@@ -0,0 +1,44 @@
+package com.example.restservice.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkOrderReportDto {
+
+    private int created;
+    private int rejected;
+    private List<BulkOrderResultDto> results = new ArrayList<>();
+
+    public BulkOrderReportDto() {
+    }
+
+    public BulkOrderReportDto(int created, int rejected, List<BulkOrderResultDto> results) {
+        this.created = created;
+        this.rejected = rejected;
+        this.results = results;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<BulkOrderResultDto> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BulkOrderResultDto> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.restservice.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public class BulkOrderResultDto {
+
+    private int index;
+    private Long id;
+    private BigDecimal totalAmount;
+    private Map<String, String> errors;
+
+    public BulkOrderResultDto() {
+    }
+
+    public BulkOrderResultDto(int index) {
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, String> errors) {
+        this.errors = errors;
+    }
+}
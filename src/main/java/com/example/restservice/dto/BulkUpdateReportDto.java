@@ -0,0 +1,45 @@
+package com.example.restservice.dto;
+
+import com.example.restservice.model.Product;
+import java.util.List;
+
+public class BulkUpdateReportDto {
+
+    private List<Product> updated;
+    private List<Long> notFound;
+    private int recalculatedOrders;
+
+    public BulkUpdateReportDto() {
+    }
+
+    public BulkUpdateReportDto(List<Product> updated, List<Long> notFound,
+                               int recalculatedOrders) {
+        this.updated = updated;
+        this.notFound = notFound;
+        this.recalculatedOrders = recalculatedOrders;
+    }
+
+    public List<Product> getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(List<Product> updated) {
+        this.updated = updated;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Long> notFound) {
+        this.notFound = notFound;
+    }
+
+    public int getRecalculatedOrders() {
+        return recalculatedOrders;
+    }
+
+    public void setRecalculatedOrders(int recalculatedOrders) {
+        this.recalculatedOrders = recalculatedOrders;
+    }
+}
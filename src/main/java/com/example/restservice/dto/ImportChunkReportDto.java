@@ -0,0 +1,62 @@
+package com.example.restservice.dto;
+
+public class ImportChunkReportDto {
+
+    private int chunk;
+    private long firstItem;
+    private long lastItem;
+    private int items;
+    private String error;
+
+    public ImportChunkReportDto() {
+    }
+
+    public ImportChunkReportDto(int chunk, long firstItem, long lastItem, int items,
+                                String error) {
+        this.chunk = chunk;
+        this.firstItem = firstItem;
+        this.lastItem = lastItem;
+        this.items = items;
+        this.error = error;
+    }
+
+    public int getChunk() {
+        return chunk;
+    }
+
+    public void setChunk(int chunk) {
+        this.chunk = chunk;
+    }
+
+    public long getFirstItem() {
+        return firstItem;
+    }
+
+    public void setFirstItem(long firstItem) {
+        this.firstItem = firstItem;
+    }
+
+    public long getLastItem() {
+        return lastItem;
+    }
+
+    public void setLastItem(long lastItem) {
+        this.lastItem = lastItem;
+    }
+
+    public int getItems() {
+        return items;
+    }
+
+    public void setItems(int items) {
+        this.items = items;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
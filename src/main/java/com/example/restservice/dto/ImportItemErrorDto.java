@@ -0,0 +1,33 @@
+package com.example.restservice.dto;
+
+import java.util.Map;
+
+public class ImportItemErrorDto {
+
+    private long item;
+    private Map<String, String> errors;
+
+    public ImportItemErrorDto() {
+    }
+
+    public ImportItemErrorDto(long item, Map<String, String> errors) {
+        this.item = item;
+        this.errors = errors;
+    }
+
+    public long getItem() {
+        return item;
+    }
+
+    public void setItem(long item) {
+        this.item = item;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.restservice.dto;
+
+public class ImportProgressDto {
+
+    private String id;
+    private long received;
+    private long saved;
+    private long rejected;
+
+    public ImportProgressDto() {
+    }
+
+    public ImportProgressDto(String id, long received, long saved, long rejected) {
+        this.id = id;
+        this.received = received;
+        this.saved = saved;
+        this.rejected = rejected;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getSaved() {
+        return saved;
+    }
+
+    public void setSaved(long saved) {
+        this.saved = saved;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.restservice.dto;
+
+import com.example.restservice.model.IngestStatus;
+import java.util.Map;
+import java.util.UUID;
+
+public class IngestTicketDto {
+
+    private UUID ticket;
+    private IngestStatus status;
+    private Long orderId;
+    private Map<String, String> errors;
+
+    public IngestTicketDto() {
+    }
+
+    public IngestTicketDto(UUID ticket, IngestStatus status, Long orderId,
+                           Map<String, String> errors) {
+        this.ticket = ticket;
+        this.status = status;
+        this.orderId = orderId;
+        this.errors = errors;
+    }
+
+    public UUID getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(UUID ticket) {
+        this.ticket = ticket;
+    }
+
+    public IngestStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(IngestStatus status) {
+        this.status = status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, String> errors) {
+        this.errors = errors;
+    }
+}
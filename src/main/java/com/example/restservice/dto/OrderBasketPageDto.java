@@ -0,0 +1,44 @@
+package com.example.restservice.dto;
+
+import com.example.restservice.model.Order;
+import java.util.List;
+
+public class OrderBasketPageDto {
+
+    private List<Order> items;
+    private long total;
+    private Long nextAfterId;
+
+    public OrderBasketPageDto() {
+    }
+
+    public OrderBasketPageDto(List<Order> items, long total, Long nextAfterId) {
+        this.items = items;
+        this.total = total;
+        this.nextAfterId = nextAfterId;
+    }
+
+    public List<Order> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Order> items) {
+        this.items = items;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.restservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+public class OrderLineOpDto {
+
+    public static final String ADD = "add";
+    public static final String REMOVE = "remove";
+
+    @NotNull(message = "Операция обязательна")
+    @Pattern(regexp = "add|remove", message = "Операция: add или remove")
+    private String op;
+
+    @NotNull(message = "id товара обязателен")
+    private Long productId;
+
+    public OrderLineOpDto() {
+    }
+
+    public OrderLineOpDto(String op, Long productId) {
+        this.op = op;
+        this.productId = productId;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+}
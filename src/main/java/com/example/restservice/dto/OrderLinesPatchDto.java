@@ -0,0 +1,29 @@
+package com.example.restservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class OrderLinesPatchDto {
+
+    @NotEmpty(message = "Список операций не может быть пустым")
+    @Size(max = 1000, message = "Не больше 1000 операций за запрос")
+    @Valid
+    private List<OrderLineOpDto> operations;
+
+    public OrderLinesPatchDto() {
+    }
+
+    public OrderLinesPatchDto(List<OrderLineOpDto> operations) {
+        this.operations = operations;
+    }
+
+    public List<OrderLineOpDto> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<OrderLineOpDto> operations) {
+        this.operations = operations;
+    }
+}
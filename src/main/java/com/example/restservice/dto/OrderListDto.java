@@ -0,0 +1,22 @@
+package com.example.restservice.dto;
+
+import com.example.restservice.model.Order;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class OrderListDto {
+
+    // Без @Valid: заказы проверяются по одному, ошибка одного не отклоняет весь пакет
+    @NotEmpty(message = "Список заказов не может быть пустым")
+    @Size(max = 10000, message = "Не больше 10000 заказов за запрос")
+    private List<Order> orders;
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Order> orders) {
+        this.orders = orders;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.restservice.dto;
+
+public class OrderProductLinkDto {
+
+    private Long orderId;
+    private Long productId;
+
+    public OrderProductLinkDto() {
+    }
+
+    public OrderProductLinkDto(Long orderId, Long productId) {
+        this.orderId = orderId;
+        this.productId = productId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+}
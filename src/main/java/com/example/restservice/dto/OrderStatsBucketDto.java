@@ -0,0 +1,44 @@
+package com.example.restservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class OrderStatsBucketDto {
+
+    private LocalDate periodStart;
+    private long orderCount;
+    private BigDecimal revenue;
+
+    public OrderStatsBucketDto() {
+    }
+
+    public OrderStatsBucketDto(LocalDate periodStart, long orderCount, BigDecimal revenue) {
+        this.periodStart = periodStart;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.restservice.dto;
+
+import com.example.restservice.exception.InvalidPageRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации: поле сортировки, направление и ключ последней строки страницы.
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final String sort;
+    private final boolean descending;
+    private final long lastId;
+    private final String lastValue;
+
+    public PageCursor(String sort, boolean descending, long lastId, String lastValue) {
+        this.sort = sort;
+        this.descending = descending;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+
+    public String encode() {
+        String raw = sort + SEPARATOR + (descending ? "desc" : "asc") + SEPARATOR + lastId
+                + SEPARATOR + (lastValue != null ? lastValue : "");
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token, String expectedSort, boolean expectedDescending) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new InvalidPageRequestException("Некорректный курсор страницы");
+            }
+            boolean descending = "desc".equals(parts[1]);
+            if (!parts[0].equals(expectedSort) || descending != expectedDescending) {
+                throw new InvalidPageRequestException(
+                        "Курсор получен для другой сортировки, начните с первой страницы");
+            }
+            return new PageCursor(parts[0], descending, Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Некорректный курсор страницы");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.restservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class ProductIdsDto {
+
+    @NotEmpty(message = "Список id не может быть пустым")
+    @Size(max = 1000, message = "За один запрос можно передать не больше 1000 id")
+    private List<@NotNull(message = "id не может быть null") Long> ids;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.restservice.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImportReportDto {
+
+    private long received;
+    private long saved;
+    private long rejected;
+    private int chunkCount;
+    // Подробности хранятся только для первых отказов; остальные лишь считаются
+    private List<ImportChunkReportDto> failedChunks = new ArrayList<>();
+    private List<ImportItemErrorDto> rejectedItems = new ArrayList<>();
+    private long omittedErrors;
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getSaved() {
+        return saved;
+    }
+
+    public void setSaved(long saved) {
+        this.saved = saved;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public List<ImportChunkReportDto> getFailedChunks() {
+        return failedChunks;
+    }
+
+    public void setFailedChunks(List<ImportChunkReportDto> failedChunks) {
+        this.failedChunks = failedChunks;
+    }
+
+    public List<ImportItemErrorDto> getRejectedItems() {
+        return rejectedItems;
+    }
+
+    public void setRejectedItems(List<ImportItemErrorDto> rejectedItems) {
+        this.rejectedItems = rejectedItems;
+    }
+
+    public long getOmittedErrors() {
+        return omittedErrors;
+    }
+
+    public void setOmittedErrors(long omittedErrors) {
+        this.omittedErrors = omittedErrors;
+    }
+}
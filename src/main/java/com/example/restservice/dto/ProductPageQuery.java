@@ -0,0 +1,90 @@
+package com.example.restservice.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import java.math.BigDecimal;
+
+public class ProductPageQuery {
+
+    private String cursor;
+
+    @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+    @Max(value = 500, message = "Размер страницы не может превышать 500")
+    private int size = 20;
+
+    private String namePrefix;
+
+    @DecimalMin(value = "0", message = "Минимальная цена не может быть отрицательной")
+    private BigDecimal minPrice;
+
+    @DecimalMin(value = "0", message = "Максимальная цена не может быть отрицательной")
+    private BigDecimal maxPrice;
+
+    @Pattern(regexp = "id|price|name", message = "Сортировка возможна по id, price или name")
+    private String sort = "id";
+
+    @Pattern(regexp = "asc|desc", message = "Направление сортировки: asc или desc")
+    private String direction = "asc";
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+
+    public boolean isDescending() {
+        return "desc".equals(direction);
+    }
+}
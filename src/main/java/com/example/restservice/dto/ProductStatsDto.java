@@ -0,0 +1,43 @@
+package com.example.restservice.dto;
+
+import java.math.BigDecimal;
+
+public class ProductStatsDto {
+
+    private Long productId;
+    private long orderCount;
+    private BigDecimal revenue;
+
+    public ProductStatsDto() {
+    }
+
+    public ProductStatsDto(Long productId, long orderCount, BigDecimal revenue) {
+        this.productId = productId;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.restservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+public class ProductUpdateDto {
+
+    @NotNull(message = "id товара обязателен")
+    private Long id;
+
+    @NotBlank(message = "Название не может быть пустым")
+    @Size(min = 2, max = 50, message = "Название должно быть от 2 до 50 символов")
+    private String name;
+
+    @NotNull(message = "Цена обязательна")
+    @Positive(message = "Цена должна быть положительной")
+    private BigDecimal price;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+}
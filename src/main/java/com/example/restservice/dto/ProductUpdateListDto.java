@@ -0,0 +1,22 @@
+package com.example.restservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class ProductUpdateListDto {
+
+    @NotEmpty(message = "Список товаров не может быть пустым")
+    @Size(max = 10000, message = "За один запрос можно обновить не больше 10000 товаров")
+    @Valid
+    private List<ProductUpdateDto> products;
+
+    public List<ProductUpdateDto> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<ProductUpdateDto> products) {
+        this.products = products;
+    }
+}
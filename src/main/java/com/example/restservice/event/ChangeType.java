@@ -0,0 +1,7 @@
+package com.example.restservice.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,40 @@
+package com.example.restservice.event;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Заказы созданы, изменены или удалены; массовое создание присылает одно событие на порцию.
+ * productNameKeys — нормализованные названия всех товаров заказов до и после изменения:
+ * под каждым из них заказ мог попасть в кэш.
+ */
+public final class OrderChangedEvent {
+
+    private final ChangeType type;
+    private final List<Long> orderIds;
+    private final Set<String> productNameKeys;
+
+    public OrderChangedEvent(ChangeType type, Long orderId, Set<String> productNameKeys) {
+        this(type, List.of(orderId), productNameKeys);
+    }
+
+    public OrderChangedEvent(ChangeType type, Collection<Long> orderIds,
+                             Set<String> productNameKeys) {
+        this.type = type;
+        this.orderIds = List.copyOf(orderIds);
+        this.productNameKeys = Set.copyOf(productNameKeys);
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public Set<String> getProductNameKeys() {
+        return productNameKeys;
+    }
+}
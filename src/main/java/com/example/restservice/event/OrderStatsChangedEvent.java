@@ -0,0 +1,27 @@
+package com.example.restservice.event;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * В таблицах order_stats_* изменились строки этих дней и товаров.
+ * Публикуется внутри транзакции, копия в памяти перечитывает их после фиксации.
+ */
+public final class OrderStatsChangedEvent {
+
+    private final Set<LocalDate> days;
+    private final Set<Long> productIds;
+
+    public OrderStatsChangedEvent(Set<LocalDate> days, Set<Long> productIds) {
+        this.days = Set.copyOf(days);
+        this.productIds = Set.copyOf(productIds);
+    }
+
+    public Set<LocalDate> getDays() {
+        return days;
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+}
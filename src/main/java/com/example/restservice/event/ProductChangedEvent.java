@@ -0,0 +1,75 @@
+package com.example.restservice.event;
+
+import com.example.restservice.model.Product;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Товары созданы, изменены или удалены.
+ * Публикуется внутри транзакции, слушатели получают его только после фиксации.
+ * Хранит отсоединённые копии товаров, чтобы слушатели не трогали управляемые сущности.
+ */
+public final class ProductChangedEvent {
+
+    private final ChangeType type;
+    private final Set<Long> productIds;
+    private final List<Product> products;
+    private final Set<String> previousNameKeys;
+
+    private ProductChangedEvent(ChangeType type, Set<Long> productIds, List<Product> products,
+                                Set<String> previousNameKeys) {
+        this.type = type;
+        this.productIds = productIds;
+        this.products = products;
+        this.previousNameKeys = previousNameKeys;
+    }
+
+    public static ProductChangedEvent created(Collection<Product> products) {
+        return new ProductChangedEvent(ChangeType.CREATED, idsOf(products), copiesOf(products),
+                Set.of());
+    }
+
+    // previousNameKeys — ключи названий до изменения, иначе переименование не найти
+    public static ProductChangedEvent updated(Collection<Product> products,
+                                              Set<String> previousNameKeys) {
+        return new ProductChangedEvent(ChangeType.UPDATED, idsOf(products), copiesOf(products),
+                Set.copyOf(previousNameKeys));
+    }
+
+    public static ProductChangedEvent deleted(Collection<Long> productIds) {
+        return new ProductChangedEvent(ChangeType.DELETED,
+                Set.copyOf(new LinkedHashSet<>(productIds)), List.of(), Set.of());
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public Set<String> getPreviousNameKeys() {
+        return previousNameKeys;
+    }
+
+    private static Set<Long> idsOf(Collection<Product> products) {
+        Set<Long> ids = new LinkedHashSet<>();
+        products.forEach(p -> {
+            if (p.getId() != null) {
+                ids.add(p.getId());
+            }
+        });
+        return Set.copyOf(ids);
+    }
+
+    private static List<Product> copiesOf(Collection<Product> products) {
+        return products.stream().map(Product::copyOf).toList();
+    }
+}
@@ -6,6 +6,8 @@ import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -73,6 +75,64 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidPageRequestException(
+            InvalidPageRequestException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put(ERROR_KEY, ex.getMessage());
+
+        logger.warn("⚠️ InvalidPageRequestException: {}", ex.getMessage());
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(CacheLoadTimeoutException.class)
+    public ResponseEntity<Map<String, String>> handleCacheLoadTimeoutException(
+            CacheLoadTimeoutException ex) {
+        logger.warn("⚠️ CacheLoadTimeoutException: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of(ERROR_KEY, ex.getMessage()));
+    }
+
+    @ExceptionHandler(OrderConflictException.class)
+    public ResponseEntity<Map<String, String>> handleOrderConflictException(
+            OrderConflictException ex) {
+        logger.warn("⚠️ OrderConflictException: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of(ERROR_KEY, ex.getMessage()));
+    }
+
+    // Заказ сохраняли поверх более новой версии: клиенту нужно перечитать его и повторить
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailure(
+            OptimisticLockingFailureException ex) {
+        logger.warn("⚠️ OptimisticLockingFailureException: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of(ERROR_KEY, "Данные изменены параллельно, повторите запрос"));
+    }
+
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<Map<String, String>> handleIngestQueueFullException(
+            IngestQueueFullException ex) {
+        logger.warn("⚠️ IngestQueueFullException: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(ERROR_KEY, ex.getMessage()));
+    }
+
+    @ExceptionHandler(IngestUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleIngestUnavailableException(
+            IngestUnavailableException ex) {
+        logger.warn("⚠️ IngestUnavailableException: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of(ERROR_KEY, ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleAllOtherExceptions(Exception ex) {
         Map<String, String> error = new HashMap<>();
@@ -0,0 +1,7 @@
+package com.example.restservice.exception;
+
+public class IngestUnavailableException extends RuntimeException {
+    public IngestUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.restservice.exception;
+
+public class OrderConflictException extends RuntimeException {
+    public OrderConflictException(String message) {
+        super(message);
+    }
+}
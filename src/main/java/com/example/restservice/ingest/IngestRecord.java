@@ -0,0 +1,58 @@
+package com.example.restservice.ingest;
+
+import com.example.restservice.dto.IngestTicketDto;
+import com.example.restservice.model.IngestStatus;
+import com.example.restservice.model.Order;
+import com.example.restservice.model.Product;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Строка журнала приёма. Запись QUEUED несёт сам заказ (товары только по id),
+ * COMMITTED и REJECTED — его исход; at нужен, чтобы при сжатии журнала отбросить
+ * исходы старше срока хранения статусов.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IngestRecord(UUID ticket, IngestStatus status, Instant at,
+                           String customerName, LocalDateTime orderDate, List<Long> productIds,
+                           Long orderId, Map<String, String> errors) {
+
+    public static IngestRecord queued(UUID ticket, Order order, Instant at) {
+        List<Long> productIds = order.getProducts().stream().map(Product::getId).sorted().toList();
+        return new IngestRecord(ticket, IngestStatus.QUEUED, at, order.getCustomerName(),
+                order.getOrderDate(), productIds, null, null);
+    }
+
+    public IngestRecord committed(long id, Instant when) {
+        return new IngestRecord(ticket, IngestStatus.COMMITTED, when, null, null, null, id, null);
+    }
+
+    public IngestRecord rejected(Map<String, String> reasons, Instant when) {
+        return new IngestRecord(ticket, IngestStatus.REJECTED, when, null, null, null, null,
+                reasons);
+    }
+
+    public Order toOrder() {
+        Set<Product> products = new HashSet<>();
+        for (Long productId : productIds) {
+            Product product = new Product();
+            product.setId(productId);
+            products.add(product);
+        }
+        Order order = new Order();
+        order.setCustomerName(customerName);
+        order.setOrderDate(orderDate);
+        order.setProducts(products);
+        return order;
+    }
+
+    public IngestTicketDto toTicket() {
+        return new IngestTicketDto(ticket, status, orderId, errors);
+    }
+}
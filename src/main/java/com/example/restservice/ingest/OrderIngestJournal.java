@@ -0,0 +1,164 @@
+package com.example.restservice.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Журнал приёма только на дозапись: по строке JSON на IngestRecord.
+ * fsync групповой — поток, дождавшийся своей очереди на force, делает его сразу
+ * за всех, кто успел дописать раньше, поэтому одновременные приёмы не платят
+ * по fsync каждый. Сжатие переписывает файл целиком через временный файл.
+ */
+class OrderIngestJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIngestJournal.class);
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+    // Счётчики байт за всё время работы, а не позиции в файле: переживают сжатие
+    private volatile long written;
+    private long synced;
+    private long size;
+
+    OrderIngestJournal(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Все целые записи журнала по порядку. Оборванная при сбое последняя строка
+     * пропускается; следующий rewrite убирает её из файла.
+     */
+    List<IngestRecord> read() throws IOException {
+        List<IngestRecord> records = new ArrayList<>();
+        if (!Files.isReadable(file)) {
+            return records;
+        }
+        try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    records.add(objectMapper.readValue(line, IngestRecord.class));
+                } catch (IOException e) {
+                    logger.warn("⚠️ Пропущена повреждённая запись журнала приёма: {}",
+                            e.getMessage());
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Заменяет журнал записями snapshot и открывает его для дозаписи. Снимок берётся
+     * под блокировкой дозаписи: всё, что дописано до него, должно в него попасть.
+     */
+    void rewrite(Supplier<Collection<IngestRecord>> snapshot) throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                Path parent = file.toAbsolutePath().getParent();
+                Files.createDirectories(parent);
+                Path tmp = Files.createTempFile(parent, "order-ingest", ".tmp");
+                byte[] bytes = encode(snapshot.get());
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    writeFully(out, bytes);
+                    out.force(true);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                if (channel != null) {
+                    channel.close();
+                }
+                channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                size = bytes.length;
+                synced = written;
+            }
+        }
+    }
+
+    /**
+     * Дописывает записи; при durable возвращается только после fsync.
+     */
+    void append(Collection<IngestRecord> records, boolean durable) throws IOException {
+        byte[] bytes = encode(records);
+        long end;
+        synchronized (this) {
+            if (channel == null) {
+                throw new IOException("Журнал приёма не открыт");
+            }
+            writeFully(channel, bytes);
+            size += bytes.length;
+            written += bytes.length;
+            end = written;
+        }
+        if (durable) {
+            sync(end);
+        }
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void sync(long end) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= end) {
+                return;
+            }
+            final long target = written;
+            FileChannel current;
+            synchronized (this) {
+                current = channel;
+            }
+            if (current == null) {
+                throw new IOException("Журнал приёма закрыт");
+            }
+            current.force(false);
+            synced = target;
+        }
+    }
+
+    private byte[] encode(Collection<IngestRecord> records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(records.size() * 128);
+        for (IngestRecord record : records) {
+            out.write(objectMapper.writeValueAsBytes(record));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
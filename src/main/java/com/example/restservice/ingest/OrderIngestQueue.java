@@ -0,0 +1,375 @@
+package com.example.restservice.ingest;
+
+import com.example.restservice.dto.BulkOrderResultDto;
+import com.example.restservice.dto.IngestTicketDto;
+import com.example.restservice.exception.IngestQueueFullException;
+import com.example.restservice.exception.IngestUnavailableException;
+import com.example.restservice.exception.InvalidOrderException;
+import com.example.restservice.model.IngestStatus;
+import com.example.restservice.model.Order;
+import com.example.restservice.model.Product;
+import com.example.restservice.service.OrderBulkService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Асинхронный приём заказов с групповой фиксацией. Запрос только пишет заказ
+ * в локальный журнал и ставит в очередь, не занимая соединение с БД; единственный
+ * поток-писатель забирает до batch-size заказов (или сколько набралось за max-wait)
+ * и фиксирует их одной транзакцией через OrderBulkService.
+ * <p>
+ * Очередь ограничена capacity: при заполнении приём отвечает 429. Заказ, принятый
+ * в журнал, но не зафиксированный к падению узла, повторяется при следующем запуске;
+ * билет сохраняется в orders.ingest_ticket, поэтому уже записанный заказ при повторе
+ * узнаётся и второй раз не создаётся. При недоступной БД группа повторяется через
+ * retry-delay, а ошибка конкретных данных разбивает группу на одиночные заказы.
+ */
+@Service
+public class OrderIngestQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIngestQueue.class);
+    private static final String ERROR_KEY = "error";
+    private static final long POLL_MILLIS = 500;
+    private static final String COMMITTED_TICKETS =
+            "SELECT ingest_ticket, id FROM orders WHERE ingest_ticket IN (:tickets)";
+
+    private final OrderBulkService orderBulkService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final OrderIngestJournal journal;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration maxWait;
+    private final Duration retryDelay;
+    private final int capacity;
+    private final long compactSize;
+    private final BlockingQueue<IngestRecord> queue = new LinkedBlockingQueue<>();
+    private final Map<UUID, IngestRecord> pending = new ConcurrentHashMap<>();
+    // Билеты из журнала прошлого запуска: перед записью проверяются по БД
+    private final Set<UUID> recovered = ConcurrentHashMap.newKeySet();
+    private final Cache<UUID, IngestRecord> completed;
+
+    private volatile Semaphore slots;
+    private volatile boolean running;
+    private long compactedSize;
+    private Thread writer;
+
+    public OrderIngestQueue(OrderBulkService orderBulkService,
+                            NamedParameterJdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                            @Value("${app.orders.ingest.enabled:false}") boolean enabled,
+                            @Value("${app.orders.ingest.capacity:10000}") int capacity,
+                            @Value("${app.orders.ingest.batch-size:500}") int batchSize,
+                            @Value("${app.orders.ingest.max-wait:50ms}") Duration maxWait,
+                            @Value("${app.orders.ingest.retry-delay:1s}") Duration retryDelay,
+                            @Value("${app.orders.ingest.status-ttl:1h}") Duration statusTtl,
+                            @Value("${app.orders.ingest.journal.file:data/order-ingest.journal}")
+                            Path journalFile,
+                            @Value("${app.orders.ingest.journal.compact-size:64MB}")
+                            DataSize compactSize) {
+        this.orderBulkService = orderBulkService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.journal = new OrderIngestJournal(journalFile, objectMapper);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxWait = maxWait;
+        this.retryDelay = retryDelay;
+        this.capacity = capacity;
+        this.compactSize = compactSize.toBytes();
+        this.slots = new Semaphore(capacity);
+        this.completed = Caffeine.newBuilder()
+                .expireAfterWrite(statusTtl)
+                .maximumSize(Math.max(capacity, 100_000))
+                .build();
+    }
+
+    /**
+     * Возвращается после того, как заказ надёжно записан в журнал (fsync).
+     */
+    public IngestTicketDto accept(Order order) {
+        if (!running) {
+            throw new IngestUnavailableException(
+                    "Асинхронный приём заказов выключен или ещё не запущен");
+        }
+        if (order.getProducts().stream().map(Product::getId).anyMatch(Objects::isNull)) {
+            throw new InvalidOrderException("У каждого товара должен быть указан id");
+        }
+        if (!slots.tryAcquire()) {
+            throw new IngestQueueFullException("Очередь приёма заказов заполнена, повторите позже");
+        }
+        IngestRecord record = IngestRecord.queued(UUID.randomUUID(), order, Instant.now());
+        // В pending до записи в журнал: сжатие журнала берёт снимок pending
+        pending.put(record.ticket(), record);
+        try {
+            journal.append(List.of(record), true);
+        } catch (IOException e) {
+            pending.remove(record.ticket());
+            slots.release();
+            logger.error("❌ Не удалось записать заказ в журнал приёма", e);
+            throw new IngestUnavailableException("Не удалось записать заказ в журнал приёма");
+        }
+        queue.add(record);
+        return record.toTicket();
+    }
+
+    public Optional<IngestTicketDto> getTicket(UUID ticket) {
+        // Исход кладётся раньше, чем билет уходит из pending
+        IngestRecord record = completed.getIfPresent(ticket);
+        if (record == null) {
+            record = pending.get(ticket);
+        }
+        return Optional.ofNullable(record).map(IngestRecord::toTicket);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            logger.error("❌ Журнал приёма заказов недоступен, приём выключен", e);
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "order-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Писатель доделывает текущую группу; остаток очереди останется в журнале
+     * и будет зафиксирован при следующем запуске.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(maxWait.toMillis() + TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("⚠️ Не удалось закрыть журнал приёма: {}", e.getMessage());
+        }
+    }
+
+    // Исход по билету важнее записи о приёме; незавершённые снова встают в очередь
+    void recover() throws IOException {
+        Map<UUID, IngestRecord> latest = new LinkedHashMap<>();
+        for (IngestRecord record : journal.read()) {
+            IngestRecord previous = latest.get(record.ticket());
+            if (previous == null || previous.status() == IngestStatus.QUEUED) {
+                latest.put(record.ticket(), record);
+            }
+        }
+        for (IngestRecord record : latest.values()) {
+            if (record.status() == IngestStatus.QUEUED) {
+                pending.put(record.ticket(), record);
+                recovered.add(record.ticket());
+                queue.add(record);
+            } else {
+                completed.put(record.ticket(), record);
+            }
+        }
+        // Повторённых заказов может быть больше capacity: приём подождёт, пока их запишут
+        slots = new Semaphore(capacity - recovered.size());
+        journal.rewrite(this::snapshot);
+        compactedSize = journal.size();
+        if (!recovered.isEmpty()) {
+            logger.info("♻️ Из журнала приёма восстановлено незафиксированных заказов: {}",
+                    recovered.size());
+        }
+    }
+
+    private void drain() {
+        List<IngestRecord> group = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                IngestRecord first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (group.size() < batchSize) {
+                    queue.drainTo(group, batchSize - group.size());
+                    long left = deadline - System.nanoTime();
+                    if (group.size() >= batchSize || left <= 0) {
+                        break;
+                    }
+                    IngestRecord next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commit(group);
+                group.clear();
+                compactIfNeeded();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void commit(List<IngestRecord> group) throws InterruptedException {
+        // После сбоя COMMIT мог пройти на сервере: каждый повтор сначала сверяет билеты
+        boolean retry = false;
+        while (true) {
+            try {
+                finish(write(group, retry));
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    rejectOrSplit(group, e);
+                    return;
+                }
+                if (!running) {
+                    return;
+                }
+                logger.warn("⚠️ Не удалось зафиксировать группу из {} заказов, повтор через {}: {}",
+                        group.size(), retryDelay, e.getMessage());
+                Thread.sleep(retryDelay.toMillis());
+                retry = true;
+            }
+        }
+    }
+
+    private List<IngestRecord> write(List<IngestRecord> group, boolean retry) {
+        Instant now = Instant.now();
+        List<IngestRecord> outcomes = new ArrayList<>(group.size());
+        Map<UUID, Long> alreadyCommitted = committedBefore(group, retry);
+        List<IngestRecord> fresh = new ArrayList<>(group.size());
+        for (IngestRecord record : group) {
+            Long orderId = alreadyCommitted.get(record.ticket());
+            if (orderId != null) {
+                outcomes.add(record.committed(orderId, now));
+            } else {
+                fresh.add(record);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return outcomes;
+        }
+        List<Order> orders = fresh.stream().map(IngestRecord::toOrder).toList();
+        List<UUID> tickets = fresh.stream().map(IngestRecord::ticket).toList();
+        List<BulkOrderResultDto> results = orderBulkService.commitGroup(orders, tickets);
+        for (int i = 0; i < fresh.size(); i++) {
+            BulkOrderResultDto result = results.get(i);
+            outcomes.add(result.getErrors() == null
+                    ? fresh.get(i).committed(result.getId(), now)
+                    : fresh.get(i).rejected(result.getErrors(), now));
+        }
+        return outcomes;
+    }
+
+    // Заказы прошлого запуска могли быть записаны в БД, но не отмечены в журнале,
+    // а при повторе — записаны прошлой попыткой, ответ которой не дошёл
+    private Map<UUID, Long> committedBefore(List<IngestRecord> group, boolean retry) {
+        List<UUID> tickets = group.stream().map(IngestRecord::ticket)
+                .filter(ticket -> retry || recovered.contains(ticket)).toList();
+        Map<UUID, Long> result = new HashMap<>();
+        if (!tickets.isEmpty()) {
+            jdbcTemplate.query(COMMITTED_TICKETS, Map.of("tickets", tickets),
+                    rs -> {
+                        result.put(rs.getObject(1, UUID.class), rs.getLong(2));
+                    });
+        }
+        return result;
+    }
+
+    private void rejectOrSplit(List<IngestRecord> group, RuntimeException e)
+            throws InterruptedException {
+        if (group.size() > 1) {
+            logger.warn("⚠️ Группа из {} заказов отклонена БД, фиксируем по одному: {}",
+                    group.size(), e.getMessage());
+            for (IngestRecord record : group) {
+                commit(List.of(record));
+            }
+            return;
+        }
+        logger.error("❌ Заказ по билету {} не удалось сохранить", group.get(0).ticket(), e);
+        finish(List.of(group.get(0).rejected(Map.of(ERROR_KEY,
+                "Не удалось сохранить заказ: " + e.getMessage()), Instant.now())));
+    }
+
+    private void finish(List<IngestRecord> outcomes) {
+        try {
+            // Без fsync: потерянный исход восстановится сверкой билетов с БД
+            journal.append(outcomes, false);
+        } catch (IOException e) {
+            logger.warn("⚠️ Не удалось отметить исход {} заказов в журнале приёма: {}",
+                    outcomes.size(), e.getMessage());
+        }
+        for (IngestRecord outcome : outcomes) {
+            completed.put(outcome.ticket(), outcome);
+            pending.remove(outcome.ticket());
+            recovered.remove(outcome.ticket());
+        }
+        slots.release(outcomes.size());
+    }
+
+    private void compactIfNeeded() {
+        // Исходы живут status-ttl, поэтому сжатый журнал может остаться большим
+        if (journal.size() < Math.max(compactSize, 2 * compactedSize)) {
+            return;
+        }
+        try {
+            journal.rewrite(this::snapshot);
+            compactedSize = journal.size();
+        } catch (IOException e) {
+            logger.warn("⚠️ Не удалось сжать журнал приёма: {}", e.getMessage());
+        }
+    }
+
+    // Незавершённые заказы и ещё не просроченные исходы
+    private Collection<IngestRecord> snapshot() {
+        List<IngestRecord> records = new ArrayList<>(completed.asMap().values());
+        records.addAll(pending.values());
+        return records;
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+}
@@ -3,9 +3,11 @@ package com.example.restservice.mapper;
 import com.example.restservice.dto.ProductDto;
 import com.example.restservice.model.Product;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface ProductMapper {
+    @Mapping(target = "nameKey", ignore = true)
     Product toEntity(ProductDto dto);
 
     ProductDto toDto(Product entity);
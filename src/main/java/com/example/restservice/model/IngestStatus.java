@@ -0,0 +1,7 @@
+package com.example.restservice.model;
+
+public enum IngestStatus {
+    QUEUED,
+    COMMITTED,
+    REJECTED
+}
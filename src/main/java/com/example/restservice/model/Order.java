@@ -1,14 +1,17 @@
 package com.example.restservice.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
@@ -44,13 +47,20 @@ public class Order {
     @JoinTable(
             name = "order_product",
             joinColumns = @JoinColumn(name = "order_id"),
-            inverseJoinColumns = @JoinColumn(name = "product_id")
+            inverseJoinColumns = @JoinColumn(name = "product_id"),
+            indexes = @Index(name = "idx_order_product_product_id", columnList = "product_id")
     )
 
     @NotNull(message = "Список продуктов не может быть null")
     @Size(min = 1, message = "Нужно указать хотя бы один продукт")
     private Set<Product> products = new HashSet<>();
 
+    // Растёт при каждом изменении заказа, в том числе прямыми UPDATE строк и сумм:
+    // сохранение заказа, прочитанного до чужой правки, падает, а не затирает её
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     public Order() {
         this.orderDate = LocalDateTime.now();
     }
@@ -83,6 +93,10 @@ public class Order {
         return orderDate;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
 
     public void setId(Long id) {
         this.id = id;
@@ -1,22 +1,40 @@
 package com.example.restservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
+import java.util.Locale;
 
 
 @Entity
-@Table(name = "products")
+@Table(name = "products",
+        indexes = {
+            @Index(name = "idx_products_name_key", columnList = "name_key"),
+            @Index(name = "idx_products_price_id", columnList = "price, id"),
+            @Index(name = "idx_products_name_id", columnList = "name, id")
+        })
 public class Product {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Пул из 50 идентификаторов на один вызов sequence позволяет Hibernate
+    // отправлять INSERT пачками, чего не даёт IDENTITY
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
 
@@ -24,9 +42,38 @@ public class Product {
     @Size(min = 2, max = 50, message = "Название товара должно быть от 2 до 50 символов")
     private String name;
 
+    // Ключ поиска по названию без учёта регистра; обновляется при каждой записи
+    @JsonIgnore
+    @Column(name = "name_key", nullable = false)
+    private String nameKey;
+
     @DecimalMin(value = "0.01", message = "Цена должна быть больше 0")
     private BigDecimal price;
 
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Отвязанная от сессии копия для кэшей, индексов и событий: её не изменит
+    // последующая правка управляемой сущности
+    public static Product copyOf(Product source) {
+        Product copy = new Product();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setPrice(source.getPrice());
+        copy.nameKey = source.nameKey;
+        return copy;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void refreshNameKey() {
+        this.nameKey = normalizeName(name);
+    }
+
 
     public Long getId() {
         return id;
@@ -44,6 +91,10 @@ public class Product {
         this.name = name;
     }
 
+    public String getNameKey() {
+        return nameKey;
+    }
+
     public BigDecimal getPrice() {
         return price;
     }
@@ -0,0 +1,42 @@
+package com.example.restservice.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class KeysetSpecifications {
+
+    public static final String ID = "id";
+
+    private KeysetSpecifications() {
+    }
+
+    public static <E> Specification<E> idAfter(long lastId, boolean descending) {
+        return (root, query, cb) -> descending
+                ? cb.lessThan(root.get(ID), lastId)
+                : cb.greaterThan(root.get(ID), lastId);
+    }
+
+    // (value, id) > (lastValue, lastId) — строки с тем же значением упорядочены по id.
+    // Лишнее на вид value >= lastValue даёт индексу (value, id) начать чтение с курсора:
+    // по одному OR он читал бы индекс с начала
+    public static <E, T extends Comparable<? super T>> Specification<E> after(
+            String attribute, T lastValue, long lastId, boolean descending) {
+        return (root, query, cb) -> {
+            Path<T> value = root.get(attribute);
+            Path<Long> id = root.get(ID);
+            return cb.and(
+                    descending ? cb.lessThanOrEqualTo(value, lastValue)
+                            : cb.greaterThanOrEqualTo(value, lastValue),
+                    cb.or(beyond(cb, value, lastValue, descending),
+                            cb.and(cb.equal(value, lastValue),
+                                    beyond(cb, id, lastId, descending))));
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate beyond(
+            CriteriaBuilder cb, Path<T> path, T value, boolean descending) {
+        return descending ? cb.lessThan(path, value) : cb.greaterThan(path, value);
+    }
+}
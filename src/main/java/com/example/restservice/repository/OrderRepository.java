@@ -1,17 +1,85 @@
 package com.example.restservice.repository;
 
+import com.example.restservice.dto.OrderProductLinkDto;
+import com.example.restservice.dto.OrderSummaryDto;
 import com.example.restservice.model.Order;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>,
+        JpaSpecificationExecutor<Order> {
 
-    @Query("SELECT o FROM Order o JOIN o.products p WHERE LOWER(p.name) = LOWER(:productName)")
-    List<Order> findOrdersByProductName(@Param("productName") String productName);
-}
+    @EntityGraph(attributePaths = "products")
+    List<Order> findByIdIn(Collection<Long> ids);
+
+    // Конструкторное выражение: сущности не создаются и не попадают в контекст персистентности
+    @Query("SELECT new com.example.restservice.dto.OrderSummaryDto("
+            + "o.id, o.customerName, o.orderDate, o.totalAmount, COUNT(p)) "
+            + "FROM Order o LEFT JOIN o.products p WHERE o.id > :afterId "
+            + "GROUP BY o.id, o.customerName, o.orderDate, o.totalAmount ORDER BY o.id")
+    List<OrderSummaryDto> findSummaries(@Param("afterId") long afterId, Limit limit);
+
+    // Поиск идёт по индексу products(name_key), затем по order_product(product_id).
+    // Товары подгружаются сразу: результат кладётся в кэш и живёт дольше сессии
+    @EntityGraph(attributePaths = "products")
+    @Query("SELECT DISTINCT o FROM Order o JOIN o.products p WHERE p.nameKey = :nameKey")
+    List<Order> findOrdersByProductNameKey(@Param("nameKey") String nameKey);
+
+    // Ключи названий всех товаров, лежащих в одних заказах с данными
+    @Query(value = "SELECT DISTINCT p.name_key FROM order_product a "
+            + "JOIN order_product b ON b.order_id = a.order_id "
+            + "JOIN products p ON p.id = b.product_id "
+            + "WHERE a.product_id IN (:productIds)", nativeQuery = true)
+    List<String> findNameKeysOrderedWith(@Param("productIds") Collection<Long> productIds);
 
+    @Query("SELECT DISTINCT o.id FROM Order o JOIN o.products p "
+            + "WHERE p.nameKey = :nameKey AND o.id > :afterId ORDER BY o.id")
+    List<Long> findOrderIdsByProductNameKey(@Param("nameKey") String nameKey,
+                                            @Param("afterId") long afterId, Limit limit);
 
+    @Query("SELECT o.id FROM Order o WHERE o.id > :afterId ORDER BY o.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Limit limit);
 
+    // Связи заказов из диапазона id: индекс товар → заказы строится по ним чанками
+    @Query("SELECT new com.example.restservice.dto.OrderProductLinkDto(o.id, p.id) "
+            + "FROM Order o JOIN o.products p WHERE o.id > :afterId AND o.id <= :lastId")
+    List<OrderProductLinkDto> findProductLinks(@Param("afterId") long afterId,
+                                               @Param("lastId") long lastId);
+
+    @Query("SELECT new com.example.restservice.dto.OrderProductLinkDto(o.id, p.id) "
+            + "FROM Order o JOIN o.products p WHERE o.id IN (:orderIds)")
+    List<OrderProductLinkDto> findProductLinksByOrderIds(
+            @Param("orderIds") Collection<Long> orderIds);
+
+    // Перед сдвигами сумм: строки заказов блокируются по возрастанию id, и сдвиги
+    // разных товаров в параллельных транзакциях не встают в цикл ожидания. Наружу
+    // уходит только число заблокированных строк, а не их id
+    @Query(value = "SELECT count(*) FROM (SELECT o.id FROM orders o "
+            + "WHERE o.id IN (SELECT op.order_id FROM order_product op "
+            + "WHERE op.product_id IN (:productIds)) "
+            + "ORDER BY o.id FOR NO KEY UPDATE) locked", nativeQuery = true)
+    long lockOrdersWithProducts(@Param("productIds") Collection<Long> productIds);
+
+    // Разницы цен приходят парой массивов и суммируются по заказу: заказ с несколькими
+    // изменёнными товарами сдвигается один раз, а результат — число разных заказов
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE orders o SET total_amount = o.total_amount + d.delta, "
+            + "version = o.version + 1 "
+            + "FROM (SELECT op.order_id, SUM(u.delta) AS delta "
+            + "FROM unnest(CAST(:productIds AS bigint[]), CAST(:deltas AS numeric[])) "
+            + "AS u(product_id, delta) "
+            + "JOIN order_product op ON op.product_id = u.product_id "
+            + "GROUP BY op.order_id) d "
+            + "WHERE o.id = d.order_id", nativeQuery = true)
+    int shiftTotalsForProducts(@Param("productIds") Long[] productIds,
+                               @Param("deltas") BigDecimal[] deltas);
+}
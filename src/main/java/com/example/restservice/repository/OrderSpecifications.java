@@ -0,0 +1,81 @@
+package com.example.restservice.repository;
+
+import com.example.restservice.model.Order;
+import com.example.restservice.model.Product;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class OrderSpecifications {
+
+    public static final String ID = KeysetSpecifications.ID;
+    public static final String ORDER_DATE = "orderDate";
+    public static final String CUSTOMER_NAME = "customerName";
+    public static final String PRODUCTS = "products";
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> customerStartsWith(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return null;
+        }
+        String pattern = ProductSpecifications.escapeLike(prefix.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get(CUSTOMER_NAME)), pattern, '\\');
+    }
+
+    public static Specification<Order> placedFrom(LocalDateTime from) {
+        if (from == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(ORDER_DATE), from);
+    }
+
+    public static Specification<Order> placedBefore(LocalDateTime to) {
+        if (to == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThan(root.get(ORDER_DATE), to);
+    }
+
+    public static Specification<Order> containsAllProducts(Collection<Long> productIds) {
+        Specification<Order> spec = Specification.where(null);
+        for (Long productId : productIds) {
+            spec = spec.and(containsAnyProduct(List.of(productId)));
+        }
+        return spec;
+    }
+
+    public static Specification<Order> containsAnyProduct(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.exists(withProducts(root, query, cb, productIds));
+    }
+
+    public static Specification<Order> containsNoProduct(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.not(cb.exists(withProducts(root, query, cb, productIds)));
+    }
+
+    // Коррелированный подзапрос: без JOIN в основном запросе строки заказов не дублируются
+    private static Subquery<Long> withProducts(Root<Order> root, CriteriaQuery<?> query,
+                                               CriteriaBuilder cb,
+                                               Collection<Long> productIds) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<Order> order = subquery.from(Order.class);
+        Join<Order, Product> product = order.join(PRODUCTS);
+        return subquery.select(order.get(ID)).where(
+                cb.equal(order.get(ID), root.get(ID)),
+                product.get(ProductSpecifications.ID).in(productIds));
+    }
+}
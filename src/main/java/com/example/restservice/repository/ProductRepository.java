@@ -1,8 +1,42 @@
 package com.example.restservice.repository;
 
 import com.example.restservice.model.Product;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
-}
+public interface ProductRepository extends JpaRepository<Product, Long>,
+        JpaSpecificationExecutor<Product> {
+
+    // Старая цена читается под блокировкой строки: параллельная смена цены ждёт
+    // фиксации и сдвигает суммы заказов уже от новой цены
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    // По возрастанию id: встречные массовые обновления не зациклятся на блокировках
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 
+    // Проверка использования и удаление одним запросом по индексу order_product(product_id)
+    @Modifying
+    @Query(value = "DELETE FROM products p WHERE p.id = :id AND NOT EXISTS "
+            + "(SELECT 1 FROM order_product op WHERE op.product_id = p.id)", nativeQuery = true)
+    int deleteIfUnused(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "DELETE FROM products p WHERE p.id IN (:ids) AND NOT EXISTS "
+            + "(SELECT 1 FROM order_product op WHERE op.product_id = p.id)", nativeQuery = true)
+    int deleteAllUnused(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,54 @@
+package com.example.restservice.repository;
+
+import com.example.restservice.model.Product;
+import java.math.BigDecimal;
+import java.util.Locale;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class ProductSpecifications {
+
+    public static final String ID = KeysetSpecifications.ID;
+    public static final String NAME = "name";
+    public static final String PRICE = "price";
+    public static final String NAME_KEY = "nameKey";
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> nameStartsWith(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return null;
+        }
+        // Префикс приводится к виду name_key, как Product.normalizeName, но пробел в конце
+        // сохраняется: LIKE по name_key идёт по индексу, lower(name) считался бы по строкам
+        String key = prefix.stripLeading().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        String pattern = escapeLike(key) + "%";
+        return (root, query, cb) -> cb.like(root.get(NAME_KEY), pattern, '\\');
+    }
+
+    public static Specification<Product> priceAtLeast(BigDecimal min) {
+        if (min == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(PRICE), min);
+    }
+
+    public static Specification<Product> priceAtMost(BigDecimal max) {
+        if (max == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get(PRICE), max);
+    }
+
+    public static Specification<Product> hasPrice() {
+        return (root, query, cb) -> cb.isNotNull(root.get(PRICE));
+    }
+
+    public static Specification<Product> hasNoPrice() {
+        return (root, query, cb) -> cb.isNull(root.get(PRICE));
+    }
+
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
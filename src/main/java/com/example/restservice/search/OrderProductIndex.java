@@ -0,0 +1,160 @@
+package com.example.restservice.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Инвертированный индекс товар → заказы на сжатых битовых картах Roaring.
+ * Запросы по корзине сводятся к AND / OR / ANDNOT карт, страница результата
+ * берётся через rank/select без обхода предыдущих страниц.
+ * Для инкрементальных правок индекс помнит текущий состав каждого заказа.
+ */
+public class OrderProductIndex {
+
+    private static final long[] NO_PRODUCTS = new long[0];
+
+    private final Map<Long, Roaring64NavigableMap> ordersByProduct = new HashMap<>();
+    private final Map<Long, long[]> productsByOrder = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Заменяет состав заказа; пустой набор убирает заказ из индекса.
+     */
+    public void setProducts(long orderId, Collection<Long> productIds) {
+        long[] next = productIds.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+        lock.writeLock().lock();
+        try {
+            long[] previous = productsByOrder.getOrDefault(orderId, NO_PRODUCTS);
+            for (long productId : previous) {
+                if (Arrays.binarySearch(next, productId) < 0) {
+                    Roaring64NavigableMap orders = ordersByProduct.get(productId);
+                    if (orders != null) {
+                        orders.removeLong(orderId);
+                        if (orders.isEmpty()) {
+                            ordersByProduct.remove(productId);
+                        }
+                    }
+                }
+            }
+            for (long productId : next) {
+                ordersByProduct.computeIfAbsent(productId, id -> new Roaring64NavigableMap())
+                        .addLong(orderId);
+            }
+            if (next.length == 0) {
+                productsByOrder.remove(orderId);
+            } else {
+                productsByOrder.put(orderId, next);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordersByProduct.clear();
+            productsByOrder.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // После массовой загрузки длинные серии id переводятся в run-контейнеры
+    public void optimize() {
+        lock.writeLock().lock();
+        try {
+            ordersByProduct.values().forEach(Roaring64NavigableMap::runOptimize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int orderCount() {
+        lock.readLock().lock();
+        try {
+            return productsByOrder.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Заказы, где есть все товары из all, хотя бы один из any и ни одного из none.
+     * Пустой all или any не ограничивает выборку, но хотя бы один из них обязан быть задан.
+     */
+    public Roaring64NavigableMap match(Collection<Long> all, Collection<Long> any,
+                                       Collection<Long> none) {
+        if (all.isEmpty() && any.isEmpty()) {
+            throw new IllegalArgumentException("Нужно указать товары в all или any");
+        }
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap result = null;
+            for (Long productId : all) {
+                Roaring64NavigableMap orders = ordersByProduct.get(productId);
+                if (orders == null) {
+                    return new Roaring64NavigableMap();
+                }
+                result = result == null ? copyOf(orders) : and(result, orders);
+            }
+            if (!any.isEmpty()) {
+                Roaring64NavigableMap union = union(any);
+                result = result == null ? union : and(result, union);
+            }
+            for (Long productId : none) {
+                Roaring64NavigableMap orders = ordersByProduct.get(productId);
+                if (orders != null) {
+                    result.andNot(orders);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Id заказов результата больше afterId, по возрастанию, не больше size штук.
+     */
+    public static List<Long> page(Roaring64NavigableMap result, long afterId, int size) {
+        long cardinality = result.getLongCardinality();
+        long from = afterId > 0 ? result.rankLong(afterId) : 0;
+        long to = Math.min(cardinality, from + size);
+        List<Long> ids = new ArrayList<>((int) Math.max(0, to - from));
+        for (long i = from; i < to; i++) {
+            ids.add(result.select(i));
+        }
+        return ids;
+    }
+
+    private Roaring64NavigableMap union(Collection<Long> productIds) {
+        Roaring64NavigableMap union = new Roaring64NavigableMap();
+        for (Long productId : productIds) {
+            Roaring64NavigableMap orders = ordersByProduct.get(productId);
+            if (orders != null) {
+                union.or(orders);
+            }
+        }
+        return union;
+    }
+
+    private static Roaring64NavigableMap and(Roaring64NavigableMap result,
+                                             Roaring64NavigableMap other) {
+        result.and(other);
+        return result;
+    }
+
+    private static Roaring64NavigableMap copyOf(Roaring64NavigableMap source) {
+        Roaring64NavigableMap copy = new Roaring64NavigableMap();
+        copy.or(source);
+        return copy;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.restservice.search;
+
+import com.example.restservice.model.Product;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Индекс названий товаров для автодополнения.
+ * Префиксный поиск идёт по отсортированной карте, поиск по подстроке — по триграммам.
+ * Чтение без блокировок, запись сериализуется.
+ */
+public class ProductNameIndex {
+
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final int GRAM = 3;
+
+    private final NavigableMap<String, Entry> byName = new ConcurrentSkipListMap<>();
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> trigrams = new ConcurrentHashMap<>();
+
+    public synchronized void upsert(Product product) {
+        if (product.getId() == null || product.getName() == null) {
+            return;
+        }
+        remove(product.getId());
+        Entry entry = new Entry(Product.copyOf(product));
+        byId.put(product.getId(), entry);
+        byName.put(nameKey(entry.normalized, product.getId()), entry);
+        for (String gram : trigramsOf(entry.normalized)) {
+            trigrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet())
+                    .add(product.getId());
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        Entry existing = byId.remove(id);
+        if (existing == null) {
+            return;
+        }
+        byName.remove(nameKey(existing.normalized, id));
+        for (String gram : trigramsOf(existing.normalized)) {
+            Set<Long> ids = trigrams.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    trigrams.remove(gram);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        byName.clear();
+        byId.clear();
+        trigrams.clear();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public List<Product> suggest(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // Сначала названия, начинающиеся с запроса, — они уже отсортированы по алфавиту
+        Set<Entry> result = new LinkedHashSet<>();
+        for (Entry entry : byName.subMap(normalized, true,
+                normalized + Character.MAX_VALUE, false).values()) {
+            result.add(entry);
+            if (result.size() >= limit) {
+                return toProducts(result);
+            }
+        }
+
+        if (normalized.length() >= GRAM) {
+            result.addAll(infixMatches(normalized, limit - result.size(), result));
+        }
+        return toProducts(result);
+    }
+
+    private List<Entry> infixMatches(String normalized, int limit, Set<Entry> exclude) {
+        Set<Long> smallest = null;
+        for (String gram : trigramsOf(normalized)) {
+            Set<Long> ids = trigrams.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        if (smallest == null) {
+            return List.of();
+        }
+
+        List<Entry> matches = new ArrayList<>();
+        for (Long id : smallest) {
+            Entry entry = byId.get(id);
+            if (entry != null && !exclude.contains(entry)
+                    && entry.normalized.contains(normalized)) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(Comparator
+                .comparingInt((Entry e) -> e.normalized.indexOf(normalized))
+                .thenComparing(e -> e.normalized)
+                .thenComparing(e -> e.product.getId()));
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    private static List<Product> toProducts(Set<Entry> entries) {
+        return entries.stream().map(e -> e.product).toList();
+    }
+
+    static String normalize(String value) {
+        return Product.normalizeName(value);
+    }
+
+    private static String nameKey(String normalized, Long id) {
+        return normalized + KEY_SEPARATOR + id;
+    }
+
+    private static Set<String> trigramsOf(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static final class Entry {
+
+        private final Product product;
+        private final String normalized;
+
+        private Entry(Product product) {
+            this.product = product;
+            this.normalized = normalize(product.getName());
+        }
+    }
+}
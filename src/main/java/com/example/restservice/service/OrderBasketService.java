@@ -0,0 +1,158 @@
+package com.example.restservice.service;
+
+import com.example.restservice.dto.OrderBasketPageDto;
+import com.example.restservice.dto.OrderProductLinkDto;
+import com.example.restservice.event.OrderChangedEvent;
+import com.example.restservice.exception.InvalidPageRequestException;
+import com.example.restservice.model.Order;
+import com.example.restservice.repository.KeysetSpecifications;
+import com.example.restservice.repository.OrderRepository;
+import com.example.restservice.repository.OrderSpecifications;
+import com.example.restservice.search.OrderProductIndex;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Запросы по составу корзины: заказы со всеми, любым или без указанных товаров.
+ * Отвечает индекс товар → заказы в памяти; пока он строится, те же условия идут в БД.
+ */
+@Service
+public class OrderBasketService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderBasketService.class);
+
+    private static final int LOAD_CHUNK_SIZE = 5000;
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+
+    private final OrderRepository orderRepository;
+    private final OrderProductIndex index = new OrderProductIndex();
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready;
+    private volatile boolean rebuilding;
+
+    public OrderBasketService(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        ready = false;
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        index.clear();
+        try {
+            long lastId = 0;
+            List<Long> ids;
+            do {
+                ids = orderRepository.findIdsAfter(lastId, Limit.of(LOAD_CHUNK_SIZE));
+                if (!ids.isEmpty()) {
+                    long chunkLastId = ids.get(ids.size() - 1);
+                    apply(ids, orderRepository.findProductLinks(lastId, chunkLastId));
+                    lastId = chunkLastId;
+                }
+            } while (ids.size() == LOAD_CHUNK_SIZE);
+            rebuilding = false;
+            // Чанк мог быть прочитан до фиксации правки, пришедшей во время построения
+            refresh(List.copyOf(changedDuringRebuild));
+            changedDuringRebuild.clear();
+            index.optimize();
+            ready = true;
+            logger.info("🔎 Индекс товар → заказы построен: {} заказов", index.orderCount());
+        } catch (RuntimeException e) {
+            rebuilding = false;
+            logger.error("❌ Не удалось построить индекс товар → заказы, "
+                    + "запросы по корзине пойдут в БД", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(event.getOrderIds());
+        }
+        refresh(event.getOrderIds());
+    }
+
+    /**
+     * Перечитывает состав заказов из БД; удалённые заказы уходят из индекса.
+     */
+    public void refresh(Collection<Long> orderIds) {
+        List<Long> ids = List.copyOf(orderIds);
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + REFRESH_CHUNK_SIZE));
+            apply(chunk, orderRepository.findProductLinksByOrderIds(chunk));
+        }
+    }
+
+    private void apply(Collection<Long> orderIds, List<OrderProductLinkDto> links) {
+        Map<Long, List<Long>> productsByOrder = links.stream()
+                .collect(Collectors.groupingBy(OrderProductLinkDto::getOrderId,
+                        Collectors.mapping(OrderProductLinkDto::getProductId,
+                                Collectors.toList())));
+        for (Long orderId : orderIds) {
+            index.setProducts(orderId, productsByOrder.getOrDefault(orderId, List.of()));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public OrderBasketPageDto findOrders(Collection<Long> all, Collection<Long> any,
+                                         Collection<Long> none, long afterId, int size) {
+        if (all.isEmpty() && any.isEmpty()) {
+            throw new InvalidPageRequestException("Нужно указать товары в all или any");
+        }
+        long total;
+        List<Long> ids;
+        if (ready) {
+            Roaring64NavigableMap matched = index.match(all, any, none);
+            total = matched.getLongCardinality();
+            ids = OrderProductIndex.page(matched, afterId, size + 1);
+        } else {
+            Specification<Order> spec = Specification
+                    .where(OrderSpecifications.containsAllProducts(all))
+                    .and(OrderSpecifications.containsAnyProduct(any))
+                    .and(OrderSpecifications.containsNoProduct(none));
+            total = orderRepository.count(spec);
+            ids = orderRepository.findBy(spec.and(KeysetSpecifications.idAfter(afterId, false)),
+                            q -> q.sortBy(Sort.by(OrderSpecifications.ID))
+                                    .limit(size + 1).all()).stream()
+                    .map(Order::getId)
+                    .toList();
+        }
+
+        boolean hasMore = ids.size() > size;
+        List<Long> page = hasMore ? ids.subList(0, size) : ids;
+        if (page.isEmpty()) {
+            return new OrderBasketPageDto(List.of(), total, null);
+        }
+        Map<Long, Order> orders = orderRepository.findByIdIn(page).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<Order> items = new ArrayList<>(page.size());
+        for (Long id : page) {
+            Order order = orders.get(id);
+            if (order != null) {
+                items.add(order);
+            }
+        }
+        return new OrderBasketPageDto(items, total, hasMore ? page.get(page.size() - 1) : null);
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.restservice.service;
+
+import com.example.restservice.analytics.OrderContribution;
+import com.example.restservice.dto.BulkOrderReportDto;
+import com.example.restservice.dto.BulkOrderResultDto;
+import com.example.restservice.event.ChangeType;
+import com.example.restservice.event.OrderChangedEvent;
+import com.example.restservice.model.Order;
+import com.example.restservice.model.Product;
+import com.example.restservice.repository.ProductRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Массовое создание заказов, например повтор пакетов после сбоя у источника.
+ * Все товары пакета читаются одним запросом, суммы считаются в памяти, а заказы
+ * и их связи с товарами вставляются JDBC-пакетами порциями по chunk-size:
+ * id берутся из последовательности IDENTITY заранее, одним запросом на порцию.
+ */
+@Service
+public class OrderBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderBulkService.class);
+    private static final String ERROR_KEY = "error";
+
+    private static final String NEXT_IDS = "SELECT nextval(pg_get_serial_sequence('orders', 'id')) "
+            + "FROM generate_series(1, ?)";
+    private static final String INSERT_ORDER = "INSERT INTO orders "
+            + "(id, customer_name, total_amount, order_date, ingest_ticket) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ORDER_PRODUCT =
+            "INSERT INTO order_product (order_id, product_id) VALUES (?, ?)";
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final OrderStatsService orderStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public OrderBulkService(ProductRepository productRepository, JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager, Validator validator,
+                            OrderStatsService orderStatsService,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${app.orders.bulk.chunk-size:1000}") int chunkSize) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.orderStatsService = orderStatsService;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Результат на каждый заказ в порядке запроса: id и сумма созданного либо ошибки.
+     * Каждая порция — отдельная транзакция, упавшая порция не откатывает записанные.
+     */
+    public BulkOrderReportDto createOrders(List<Order> orders) {
+        List<BulkOrderResultDto> results = new ArrayList<>(orders.size());
+        List<Integer> accepted = resolve(orders, results);
+
+        int created = 0;
+        for (int from = 0; from < accepted.size(); from += chunkSize) {
+            List<Integer> chunk = accepted.subList(from, Math.min(accepted.size(),
+                    from + chunkSize));
+            created += writeChunk(chunk, orders, results);
+        }
+        int rejected = orders.size() - created;
+        logger.info("📦 Массовое создание заказов: создано {}, отклонено {}", created, rejected);
+        return new BulkOrderReportDto(created, rejected, results);
+    }
+
+    /**
+     * Групповая фиксация очереди приёма: все корректные заказы одной транзакцией.
+     * Ошибка записи не раскладывается по заказам, а пробрасывается — группу повторят.
+     * tickets[i] сохраняется в заказе i, по нему повтор после сбоя отличит записанное.
+     */
+    public List<BulkOrderResultDto> commitGroup(List<Order> orders, List<UUID> tickets) {
+        List<BulkOrderResultDto> results = new ArrayList<>(orders.size());
+        List<Integer> accepted = resolve(orders, results);
+        if (!accepted.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    insert(accepted, orders, tickets));
+            accepted.forEach(index -> complete(orders.get(index), results.get(index)));
+        }
+        return results;
+    }
+
+    // Проверка и товары одним запросом; возвращает индексы заказов, готовых к записи
+    private List<Integer> resolve(List<Order> orders, List<BulkOrderResultDto> results) {
+        Set<Long> productIds = new HashSet<>();
+        for (int i = 0; i < orders.size(); i++) {
+            BulkOrderResultDto result = new BulkOrderResultDto(i);
+            results.add(result);
+            Order order = orders.get(i);
+            Map<String, String> errors = validate(order);
+            if (errors.isEmpty()) {
+                order.getProducts().forEach(p -> productIds.add(p.getId()));
+            } else {
+                result.setErrors(errors);
+            }
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findAllById(productIds).forEach(p -> products.put(p.getId(), p));
+        }
+
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (results.get(i).getErrors() != null) {
+                continue;
+            }
+            Order order = orders.get(i);
+            Set<Long> missing = new TreeSet<>();
+            Set<Product> resolved = new HashSet<>();
+            for (Product requested : order.getProducts()) {
+                Product product = products.get(requested.getId());
+                if (product == null) {
+                    missing.add(requested.getId());
+                } else {
+                    resolved.add(product);
+                }
+            }
+            if (missing.isEmpty()) {
+                order.setProducts(resolved);
+                accepted.add(i);
+            } else {
+                results.get(i).setErrors(Map.of("products", "Товары не найдены: " + missing));
+            }
+        }
+        return accepted;
+    }
+
+    private Map<String, String> validate(Order order) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        Set<ConstraintViolation<Order>> violations = validator.validate(order);
+        violations.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+        if (order.getProducts() != null
+                && order.getProducts().stream().map(Product::getId).anyMatch(Objects::isNull)) {
+            errors.put("products", "У каждого товара должен быть указан id");
+        }
+        return errors;
+    }
+
+    private int writeChunk(List<Integer> chunk, List<Order> orders,
+                           List<BulkOrderResultDto> results) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(chunk, orders, null));
+        } catch (RuntimeException e) {
+            logger.error("❌ Не удалось записать порцию из {} заказов", chunk.size(), e);
+            for (Integer index : chunk) {
+                orders.get(index).setId(null);
+                results.get(index).setErrors(Map.of(ERROR_KEY,
+                        "Не удалось сохранить заказ: " + e.getMessage()));
+            }
+            return 0;
+        }
+        chunk.forEach(index -> complete(orders.get(index), results.get(index)));
+        return chunk.size();
+    }
+
+    // Вызывается внутри транзакции; tickets = null для заказов без билета приёма
+    private void insert(List<Integer> indexes, List<Order> orders, List<UUID> tickets) {
+        List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS, Long.class, indexes.size());
+        List<Object[]> orderRows = new ArrayList<>(indexes.size());
+        List<Object[]> productRows = new ArrayList<>();
+        List<OrderContribution> contributions = new ArrayList<>(indexes.size());
+        Set<String> nameKeys = new HashSet<>();
+        for (int i = 0; i < indexes.size(); i++) {
+            int index = indexes.get(i);
+            Order order = orders.get(index);
+            order.setId(ids.get(i));
+            UUID ticket = tickets != null ? tickets.get(index) : null;
+            orderRows.add(new Object[]{order.getId(), order.getCustomerName(),
+                    order.getTotalAmount(), order.getOrderDate(), ticket});
+            for (Product product : order.getProducts()) {
+                productRows.add(new Object[]{order.getId(), product.getId()});
+                nameKeys.add(Product.normalizeName(product.getName()));
+            }
+            contributions.add(OrderContribution.of(order));
+        }
+        jdbcTemplate.batchUpdate(INSERT_ORDER, orderRows);
+        jdbcTemplate.batchUpdate(INSERT_ORDER_PRODUCT, productRows);
+        orderStatsService.recordOrdersCreated(contributions);
+
+        // Одно событие на порцию: каждый ключ кэша сбрасывается один раз
+        eventPublisher.publishEvent(new OrderChangedEvent(ChangeType.CREATED, ids, nameKeys));
+    }
+
+    private static void complete(Order order, BulkOrderResultDto result) {
+        result.setId(order.getId());
+        result.setTotalAmount(order.getTotalAmount());
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.restservice.service;
+
+import com.example.restservice.analytics.OrderContribution;
+import com.example.restservice.dto.OrderLineOpDto;
+import com.example.restservice.event.ChangeType;
+import com.example.restservice.event.OrderChangedEvent;
+import com.example.restservice.exception.InvalidOrderException;
+import com.example.restservice.exception.OrderConflictException;
+import com.example.restservice.model.Order;
+import com.example.restservice.repository.OrderRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Добавление и удаление товаров в заказе без загрузки заказа целиком: строки
+ * order_product вставляются и удаляются напрямую, а сумма сдвигается на разницу цен
+ * одним UPDATE. Правки одного заказа выстраиваются на блокировке его строки и не
+ * теряют друг друга; стоимость не зависит от числа товаров в заказе.
+ * <p>
+ * Строки товаров берутся FOR SHARE: смена цены ждёт фиксации правки и затем сдвигает
+ * сумму этого заказа вместе с остальными. Каждая правка увеличивает orders.version,
+ * поэтому сохранение заказа, прочитанного до неё, не затрёт её. Взаимоблокировки
+ * и прочие сбои конкурентного доступа повторяются до max-attempts раз.
+ */
+@Service
+public class OrderLineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderLineService.class);
+
+    // По возрастанию id: встречные правки нескольких товаров не зациклятся
+    static final String LOCK_PRODUCTS = "SELECT id, price, name_key FROM products "
+            + "WHERE id IN (:productIds) ORDER BY id FOR SHARE";
+    static final String LOCK_ORDER =
+            "SELECT order_date FROM orders WHERE id = :orderId FOR NO KEY UPDATE";
+    static final String INSERT_LINES = "INSERT INTO order_product (order_id, product_id) "
+            + "SELECT :orderId, p.id FROM products p WHERE p.id IN (:productIds) "
+            + "ON CONFLICT DO NOTHING RETURNING product_id";
+    static final String DELETE_LINES = "DELETE FROM order_product "
+            + "WHERE order_id = :orderId AND product_id IN (:productIds) RETURNING product_id";
+    static final String SHIFT_TOTAL = "UPDATE orders SET total_amount = total_amount + :delta, "
+            + "version = version + 1 WHERE id = :orderId RETURNING total_amount";
+    // Сумма входит в снимки заказа под ключами всех его товаров
+    static final String ORDER_NAME_KEYS = "SELECT p.name_key FROM order_product op "
+            + "JOIN products p ON p.id = op.product_id WHERE op.order_id = :orderId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderRepository orderRepository;
+    private final OrderStatsService orderStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxAttempts;
+
+    public OrderLineService(NamedParameterJdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            OrderRepository orderRepository,
+                            OrderStatsService orderStatsService,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${app.orders.lines.max-attempts:5}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.orderRepository = orderRepository;
+        this.orderStatsService = orderStatsService;
+        this.eventPublisher = eventPublisher;
+        this.maxAttempts = maxAttempts;
+    }
+
+    private record ProductLine(BigDecimal price, String nameKey) {
+    }
+
+    // missingProducts — товары добавлений, которых нет в каталоге; тогда ничего не записано
+    private record Outcome(boolean orderFound, Set<Long> missingProducts) {
+
+        static final Outcome NO_ORDER = new Outcome(false, Set.of());
+        static final Outcome DONE = new Outcome(true, Set.of());
+    }
+
+    /**
+     * Пусто, если нет заказа или товара. Товар, уже лежащий в заказе, ничего не меняет.
+     */
+    public Optional<Order> addProduct(Long orderId, Long productId) {
+        Outcome outcome = edit(orderId, Map.of(productId, true));
+        return outcome.missingProducts().isEmpty() ? reload(orderId, outcome) : Optional.empty();
+    }
+
+    /**
+     * Пусто, если нет заказа. Товар, которого нет в заказе, ничего не меняет.
+     */
+    public Optional<Order> removeProduct(Long orderId, Long productId) {
+        return reload(orderId, edit(orderId, Map.of(productId, false)));
+    }
+
+    /**
+     * Применяет операции одной транзакцией с одним сдвигом суммы и одним событием.
+     * Для товара, встречающегося несколько раз, действует последняя операция —
+     * как при последовательном выполнении. Пусто, если нет заказа.
+     */
+    public Optional<Order> applyLines(Long orderId, List<OrderLineOpDto> operations) {
+        Map<Long, Boolean> lines = new LinkedHashMap<>();
+        for (OrderLineOpDto operation : operations) {
+            lines.put(operation.getProductId(), OrderLineOpDto.ADD.equals(operation.getOp()));
+        }
+        Outcome outcome = edit(orderId, lines);
+        if (!outcome.missingProducts().isEmpty()) {
+            throw new InvalidOrderException("Товары не найдены: " + outcome.missingProducts());
+        }
+        return reload(orderId, outcome);
+    }
+
+    // Заказ для ответа читается уже после фиксации, вне блокировок правки
+    private Optional<Order> reload(Long orderId, Outcome outcome) {
+        if (!outcome.orderFound()) {
+            return Optional.empty();
+        }
+        return orderRepository.findByIdIn(List.of(orderId)).stream().findFirst();
+    }
+
+    private Outcome edit(Long orderId, Map<Long, Boolean> lines) {
+        return withRetry(orderId, () -> transactionTemplate.execute(status ->
+                apply(orderId, lines)));
+    }
+
+    private Outcome withRetry(Long orderId, Supplier<Outcome> attempt) {
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException e) {
+                if (i >= maxAttempts) {
+                    logger.warn("⚠️ Правка заказа {} не удалась за {} попыток: {}",
+                            orderId, i, e.getMessage());
+                    throw new OrderConflictException("Заказ " + orderId
+                            + " одновременно изменяют, повторите запрос позже");
+                }
+                logger.debug("🔁 Конфликт при правке заказа {}, попытка {}: {}",
+                        orderId, i, e.getMessage());
+                backoff(i);
+            }
+        }
+    }
+
+    // lines: товар → должен ли он остаться в заказе
+    private Outcome apply(Long orderId, Map<Long, Boolean> lines) {
+        Map<Long, ProductLine> products = new HashMap<>();
+        jdbcTemplate.query(LOCK_PRODUCTS, new MapSqlParameterSource("productIds", lines.keySet()),
+                rs -> {
+                    products.put(rs.getLong("id"), new ProductLine(rs.getBigDecimal("price"),
+                            rs.getString("name_key")));
+                });
+        Set<Long> missing = new TreeSet<>();
+        List<Long> added = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        lines.forEach((productId, add) -> {
+            if (!products.containsKey(productId)) {
+                // Удалять несуществующий товар нечего: в заказе его быть не может
+                if (add) {
+                    missing.add(productId);
+                }
+            } else if (add) {
+                added.add(productId);
+            } else {
+                removed.add(productId);
+            }
+        });
+
+        MapSqlParameterSource order = new MapSqlParameterSource("orderId", orderId);
+        List<LocalDate> days = jdbcTemplate.query(LOCK_ORDER, order,
+                (rs, rowNum) -> rs.getObject(1, LocalDateTime.class).toLocalDate());
+        if (days.isEmpty()) {
+            return Outcome.NO_ORDER;
+        }
+        if (!missing.isEmpty()) {
+            return new Outcome(true, missing);
+        }
+
+        List<Long> inserted = added.isEmpty() ? List.of() : jdbcTemplate.queryForList(
+                INSERT_LINES, lineParams(orderId, added), Long.class);
+        List<Long> deleted = removed.isEmpty() ? List.of() : jdbcTemplate.queryForList(
+                DELETE_LINES, lineParams(orderId, removed), Long.class);
+        if (inserted.isEmpty() && deleted.isEmpty()) {
+            return Outcome.DONE;
+        }
+
+        Map<Long, BigDecimal> insertedPrices = prices(inserted, products);
+        Map<Long, BigDecimal> deletedPrices = prices(deleted, products);
+        BigDecimal delta = sum(insertedPrices).subtract(sum(deletedPrices));
+        BigDecimal total = jdbcTemplate.queryForObject(SHIFT_TOTAL,
+                new MapSqlParameterSource("orderId", orderId).addValue("delta", delta),
+                BigDecimal.class);
+
+        // В агрегатах меняются только сумма дня и строки изменённых товаров
+        LocalDate day = days.get(0);
+        orderStatsService.recordOrderChange(
+                new OrderContribution(day, total.subtract(delta), deletedPrices),
+                new OrderContribution(day, total, insertedPrices));
+
+        Set<String> nameKeys = new HashSet<>(jdbcTemplate.queryForList(ORDER_NAME_KEYS, order,
+                String.class));
+        deleted.forEach(productId -> nameKeys.add(products.get(productId).nameKey()));
+        eventPublisher.publishEvent(new OrderChangedEvent(ChangeType.UPDATED, orderId,
+                nameKeys));
+        return Outcome.DONE;
+    }
+
+    private static MapSqlParameterSource lineParams(Long orderId, List<Long> productIds) {
+        return new MapSqlParameterSource("orderId", orderId).addValue("productIds", productIds);
+    }
+
+    private static Map<Long, BigDecimal> prices(List<Long> productIds,
+                                                Map<Long, ProductLine> products) {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (Long productId : productIds) {
+            BigDecimal price = products.get(productId).price();
+            prices.put(productId, price != null ? price : BigDecimal.ZERO);
+        }
+        return prices;
+    }
+
+    private static BigDecimal sum(Map<Long, BigDecimal> prices) {
+        return prices.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderConflictException("Правка заказа прервана");
+        }
+    }
+}
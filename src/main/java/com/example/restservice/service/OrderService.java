@@ -1,19 +1,43 @@
 package com.example.restservice.service;
 
+import com.example.restservice.analytics.OrderContribution;
+import com.example.restservice.cache.CacheResult;
+import com.example.restservice.cache.ClusterCacheBus;
 import com.example.restservice.cache.OrderCache;
+import com.example.restservice.cache.OrderSnapshot;
+import com.example.restservice.dto.CursorPageDto;
+import com.example.restservice.dto.OrderPageQuery;
+import com.example.restservice.dto.OrderSummaryDto;
+import com.example.restservice.dto.PageCursor;
+import com.example.restservice.event.ChangeType;
+import com.example.restservice.event.OrderChangedEvent;
 import com.example.restservice.exception.InvalidOrderException;
+import com.example.restservice.exception.InvalidPageRequestException;
 import com.example.restservice.model.Order;
 import com.example.restservice.model.Product;
+import com.example.restservice.repository.KeysetSpecifications;
 import com.example.restservice.repository.OrderRepository;
+import com.example.restservice.repository.OrderSpecifications;
 import com.example.restservice.repository.ProductRepository;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class OrderService {
@@ -23,31 +47,50 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final OrderCache orderCache;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ClusterCacheBus clusterCacheBus;
+    private final OrderStatsService orderStatsService;
 
     public OrderService(OrderRepository orderRepository,
                         ProductRepository productRepository,
-                        OrderCache orderCache) {
+                        OrderCache orderCache,
+                        ApplicationEventPublisher eventPublisher,
+                        ClusterCacheBus clusterCacheBus,
+                        OrderStatsService orderStatsService) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.orderCache = orderCache;
+        this.eventPublisher = eventPublisher;
+        this.clusterCacheBus = clusterCacheBus;
+        this.orderStatsService = orderStatsService;
     }
 
-    public List<Order> findOrdersByProductName(String productName) {
-        if (orderCache.contains(productName)) {
-            logger.info("👉 Данные взяты из кэша для productName: {}", productName);
-            return orderCache.get(productName);
-        } else {
-            logger.info("🔄 Кэш отсутствует. Загружаем из БД для productName: {}", productName);
-            List<Order> orders = orderRepository.findOrdersByProductName(productName);
-            orderCache.put(productName, orders);
-            return orders;
+    // Ключ кэша — нормализованное название, тот же, что сбрасывают события изменений
+    public CacheResult<List<OrderSnapshot>> findOrdersByProductName(String productName) {
+        return orderCache.getOrLoad(Product.normalizeName(productName), key -> {
+            logger.info("🔄 Кэш отсутствует. Загружаем из БД для productName: {}", key);
+            return orderRepository.findOrdersByProductNameKey(key);
+        });
+    }
+
+    // Страница идёт мимо кэша: id заказов по индексу, затем заказы с товарами одним запросом
+    @Transactional(readOnly = true)
+    public List<Order> findOrdersByProductName(String productName, long afterId, int size) {
+        List<Long> ids = orderRepository.findOrderIdsByProductNameKey(
+                Product.normalizeName(productName), afterId, Limit.of(size));
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        return orderRepository.findByIdIn(ids).stream()
+                .sorted(Comparator.comparing(Order::getId))
+                .toList();
     }
 
     public String clearOrdersCache() {
         String message = "🧹 Очистка кэша заказов...";
         logger.info(message);
         orderCache.clear();
+        clusterCacheBus.publishClearOrders();
         return message;
     }
 
@@ -55,10 +98,76 @@ public class OrderService {
         return orderRepository.findAll();
     }
 
+    // Два запроса на страницу: строки заказов с LIMIT и их товары одним fetch join
+    @Transactional(readOnly = true)
+    public CursorPageDto<Order> getOrdersPage(OrderPageQuery query) {
+        String sortField = query.getSort();
+        boolean descending = query.isDescending();
+
+        Specification<Order> spec = Specification
+                .where(OrderSpecifications.customerStartsWith(query.getCustomer()))
+                .and(OrderSpecifications.placedFrom(query.getFrom()))
+                .and(OrderSpecifications.placedBefore(query.getTo()));
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            PageCursor cursor = PageCursor.decode(query.getCursor(), sortField, descending);
+            spec = spec.and(keysetAfter(cursor));
+        }
+
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = OrderSpecifications.ID.equals(sortField)
+                ? Sort.by(direction, OrderSpecifications.ID)
+                : Sort.by(direction, sortField, OrderSpecifications.ID);
+
+        int size = query.getSize();
+        List<Order> rows = orderRepository.findBy(spec,
+                q -> q.sortBy(sort).limit(size + 1).all());
+        boolean hasMore = rows.size() > size;
+        List<Order> page = hasMore ? rows.subList(0, size) : rows;
+        if (page.isEmpty()) {
+            return new CursorPageDto<>(List.of(), null);
+        }
+
+        Map<Long, Order> withProducts = orderRepository.findByIdIn(
+                        page.stream().map(Order::getId).toList()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<Order> items = page.stream()
+                .map(o -> withProducts.getOrDefault(o.getId(), o))
+                .toList();
+
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = items.get(items.size() - 1);
+            String lastValue = OrderSpecifications.ORDER_DATE.equals(sortField)
+                    ? last.getOrderDate().toString()
+                    : null;
+            nextCursor = new PageCursor(sortField, descending, last.getId(), lastValue).encode();
+        }
+        return new CursorPageDto<>(items, nextCursor);
+    }
+
+    private static Specification<Order> keysetAfter(PageCursor cursor) {
+        if (!OrderSpecifications.ORDER_DATE.equals(cursor.getSort())) {
+            return KeysetSpecifications.idAfter(cursor.getLastId(), cursor.isDescending());
+        }
+        try {
+            return KeysetSpecifications.after(OrderSpecifications.ORDER_DATE,
+                    LocalDateTime.parse(cursor.getLastValue()), cursor.getLastId(),
+                    cursor.isDescending());
+        } catch (DateTimeParseException e) {
+            throw new InvalidPageRequestException("Некорректный курсор страницы");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDto> getOrderSummaries(long afterId, int size) {
+        return orderRepository.findSummaries(afterId, Limit.of(size));
+    }
+
     public Optional<Order> getOrderById(Long id) {
         return orderRepository.findById(id);
     }
 
+    @Transactional
     public Order createOrder(Order order) {
         Set<Long> productIds = order.getProducts().stream()
                 .map(Product::getId)
@@ -73,14 +182,18 @@ public class OrderService {
         order.setProducts(new HashSet<>(productsFromDb));
         order.recalculateTotalAmount();
 
-        productsFromDb.forEach(p -> orderCache.invalidate(p.getName()));
-
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        orderStatsService.recordOrderChange(null, OrderContribution.of(saved));
+        publish(ChangeType.CREATED, saved.getId(), nameKeys(productsFromDb));
+        return saved;
     }
 
+    @Transactional
     public Optional<Order> updateOrder(Long id, Order updatedOrder) {
         return orderRepository.findById(id)
                 .map(order -> {
+                    final Set<String> affected = nameKeys(order.getProducts());
+                    final OrderContribution before = OrderContribution.of(order);
                     order.setCustomerName(updatedOrder.getCustomerName());
 
                     // 💥 Заменяем сырые продукты на полные объекты из БД
@@ -94,47 +207,36 @@ public class OrderService {
 
                     order.recalculateTotalAmount();
 
-                    productsFromDb.forEach(p -> orderCache.invalidate(p.getName()));
-                    return orderRepository.save(order);
+                    affected.addAll(nameKeys(productsFromDb));
+                    Order saved = orderRepository.save(order);
+                    orderStatsService.recordOrderChange(before, OrderContribution.of(saved));
+                    publish(ChangeType.UPDATED, saved.getId(), affected);
+                    return saved;
                 });
     }
 
 
+    @Transactional
     public boolean deleteOrder(Long id) {
-        if (orderRepository.existsById(id)) {
-            orderRepository.deleteById(id);
-            return true;
+        Optional<Order> existing = orderRepository.findById(id);
+        if (existing.isEmpty()) {
+            return false;
         }
-        return false;
+        Set<String> affected = nameKeys(existing.get().getProducts());
+        orderRepository.delete(existing.get());
+        orderStatsService.recordOrderChange(OrderContribution.of(existing.get()), null);
+        publish(ChangeType.DELETED, id, affected);
+        return true;
     }
 
-    public Optional<Order> addProductToOrder(Long orderId, Long productId) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        if (productOpt.isEmpty()) {
-            return Optional.empty();
-        }
-
-        return orderRepository.findById(orderId).map(order -> {
-            order.getProducts().add(productOpt.get());
-            order.recalculateTotalAmount();
-            orderCache.invalidate(productOpt.get().getName());
-            return orderRepository.save(order);
-        });
+    // Слушатели получат событие только после фиксации транзакции
+    private void publish(ChangeType type, Long orderId, Set<String> productNameKeys) {
+        eventPublisher.publishEvent(new OrderChangedEvent(type, orderId, productNameKeys));
     }
 
-    public Optional<Order> removeProductFromOrder(Long orderId, Long productId) {
-        return orderRepository.findById(orderId).map(order -> {
-            Optional<Product> toRemove = order.getProducts().stream()
-                    .filter(p -> p.getId().equals(productId))
-                    .findFirst();
-
-            boolean removed = order.getProducts().removeIf(p -> p.getId().equals(productId));
-            if (removed) {
-                toRemove.ifPresent(p -> orderCache.invalidate(p.getName()));
-            }
-
-            order.recalculateTotalAmount();
-            return orderRepository.save(order);
-        });
+    private static Set<String> nameKeys(Collection<Product> products) {
+        return products.stream()
+                .map(p -> Product.normalizeName(p.getName()))
+                .collect(Collectors.toCollection(HashSet::new));
     }
 }
@@ -0,0 +1,265 @@
+package com.example.restservice.service;
+
+import com.example.restservice.analytics.OrderContribution;
+import com.example.restservice.analytics.OrderStatsRollup;
+import com.example.restservice.analytics.StatsBucket;
+import com.example.restservice.analytics.StatsTotals;
+import com.example.restservice.dto.OrderStatsBucketDto;
+import com.example.restservice.dto.ProductStatsDto;
+import com.example.restservice.event.OrderStatsChangedEvent;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Аналитика заказов по агрегатам order_stats_daily и order_stats_product_daily.
+ * Изменения заказов и цен пишутся в агрегаты разницей в той же транзакции,
+ * после фиксации затронутые строки перечитываются в копию в памяти, из которой
+ * и отвечают запросы. Изменения с других узлов подтягиваются полной сверкой раз в
+ * resync-interval: агрегаты малы, это дешевле рассылки по шине инвалидации.
+ */
+@Service
+public class OrderStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatsService.class);
+
+    private static final int RELOAD_CHUNK_SIZE = 1000;
+
+    private static final String UPSERT_DAY = "INSERT INTO order_stats_daily "
+            + "(day, order_count, revenue) VALUES (:day, :orderCount, :revenue) "
+            + "ON CONFLICT (day) DO UPDATE SET "
+            + "order_count = order_stats_daily.order_count + EXCLUDED.order_count, "
+            + "revenue = order_stats_daily.revenue + EXCLUDED.revenue";
+    private static final String UPSERT_PRODUCT_DAY = "INSERT INTO order_stats_product_daily "
+            + "(product_id, day, order_count, revenue) "
+            + "VALUES (:productId, :day, :orderCount, :revenue) "
+            + "ON CONFLICT (product_id, day) DO UPDATE SET "
+            + "order_count = order_stats_product_daily.order_count + EXCLUDED.order_count, "
+            + "revenue = order_stats_product_daily.revenue + EXCLUDED.revenue";
+    // Дни блокируются по порядку до правки: так же, как их берут изменения заказов
+    private static final String LOCK_PRODUCT_DAYS = "SELECT d.day FROM order_stats_daily d "
+            + "WHERE d.day IN (SELECT pd.day FROM order_stats_product_daily pd "
+            + "WHERE pd.product_id IN (:productIds)) ORDER BY d.day FOR UPDATE";
+    // Разницы цен приходят парой массивов: дни и строки товаров правятся по одному разу,
+    // сколько бы изменённых товаров ни продавалось в этот день
+    private static final String REPRICE_DAYS = "UPDATE order_stats_daily d "
+            + "SET revenue = d.revenue + x.delta "
+            + "FROM (SELECT pd.day, SUM(u.delta * pd.order_count) AS delta "
+            + "FROM unnest(:productIds, :deltas) AS u(product_id, delta) "
+            + "JOIN order_stats_product_daily pd ON pd.product_id = u.product_id "
+            + "GROUP BY pd.day) x "
+            + "WHERE d.day = x.day";
+    private static final String REPRICE_PRODUCT_DAYS = "UPDATE order_stats_product_daily pd "
+            + "SET revenue = pd.revenue + u.delta * pd.order_count "
+            + "FROM unnest(:productIds, :deltas) AS u(product_id, delta) "
+            + "WHERE pd.product_id = u.product_id";
+    private static final String SELECT_DAYS =
+            "SELECT day, order_count, revenue FROM order_stats_daily";
+    private static final String SELECT_PRODUCT_DAYS =
+            "SELECT product_id, day, order_count, revenue FROM order_stats_product_daily";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderStatsRollup rollup = new OrderStatsRollup();
+
+    public OrderStatsService(NamedParameterJdbcTemplate jdbcTemplate,
+                             ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    private record ProductDay(long productId, LocalDate day) {
+
+        static final Comparator<ProductDay> ORDER = Comparator.comparingLong(ProductDay::productId)
+                .thenComparing(ProductDay::day);
+    }
+
+    /**
+     * Переносит в агрегаты разницу вкладов заказа; before = null для нового заказа,
+     * after = null для удалённого. Вызывается внутри транзакции, меняющей заказ.
+     */
+    @Transactional
+    public void recordOrderChange(OrderContribution before, OrderContribution after) {
+        record(before != null ? List.of(before) : List.of(),
+                after != null ? List.of(after) : List.of());
+    }
+
+    /**
+     * Новые заказы одной порции: одна строка на день и на товар-день, сколько бы заказов ни было.
+     */
+    @Transactional
+    public void recordOrdersCreated(Collection<OrderContribution> created) {
+        record(List.of(), created);
+    }
+
+    private void record(Collection<OrderContribution> removed,
+                        Collection<OrderContribution> added) {
+        Map<LocalDate, StatsTotals> days = new TreeMap<>();
+        Map<ProductDay, StatsTotals> productDays = new TreeMap<>(ProductDay.ORDER);
+        removed.forEach(contribution -> collect(contribution, -1, days, productDays));
+        added.forEach(contribution -> collect(contribution, 1, days, productDays));
+        days.values().removeIf(StatsTotals::isEmpty);
+        productDays.values().removeIf(StatsTotals::isEmpty);
+        if (days.isEmpty() && productDays.isEmpty()) {
+            return;
+        }
+
+        // Сначала дни, затем товары по возрастанию id: встречные транзакции не зациклятся
+        jdbcTemplate.batchUpdate(UPSERT_DAY, days.entrySet().stream()
+                .map(e -> params(e.getValue()).addValue("day", e.getKey()))
+                .toArray(SqlParameterSource[]::new));
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT_DAY, productDays.entrySet().stream()
+                .map(e -> params(e.getValue())
+                        .addValue("productId", e.getKey().productId())
+                        .addValue("day", e.getKey().day()))
+                .toArray(SqlParameterSource[]::new));
+
+        Set<LocalDate> changedDays = new TreeSet<>(days.keySet());
+        Set<Long> changedProducts = new TreeSet<>();
+        productDays.keySet().forEach(key -> {
+            changedDays.add(key.day());
+            changedProducts.add(key.productId());
+        });
+        eventPublisher.publishEvent(new OrderStatsChangedEvent(changedDays, changedProducts));
+    }
+
+    /**
+     * Сдвигает выручку товаров на разницу цен, умноженную на число их заказов по дням.
+     * Число строк — дни продаж товара, а не его заказы.
+     */
+    @Transactional
+    public void recordReprice(Map<Long, BigDecimal> priceDeltas) {
+        Map<Long, BigDecimal> deltas = new TreeMap<>(priceDeltas);
+        deltas.values().removeIf(delta -> delta.signum() == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<LocalDate> days = jdbcTemplate.query(LOCK_PRODUCT_DAYS,
+                new MapSqlParameterSource("productIds", deltas.keySet()),
+                (rs, rowNum) -> rs.getObject(1, LocalDate.class));
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("productIds", new SqlArrayValue("bigint", deltas.keySet().toArray()))
+                .addValue("deltas", new SqlArrayValue("numeric", deltas.values().toArray()));
+        jdbcTemplate.update(REPRICE_DAYS, params);
+        jdbcTemplate.update(REPRICE_PRODUCT_DAYS, params);
+
+        eventPublisher.publishEvent(new OrderStatsChangedEvent(Set.copyOf(days),
+                deltas.keySet()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onStatsChanged(OrderStatsChangedEvent event) {
+        reload(event.getDays(), event.getProductIds());
+    }
+
+    // Перечитывание под одной блокировкой: более позднее всегда видит не меньше раннего
+    synchronized void reload(Collection<LocalDate> days, Collection<Long> productIds) {
+        List<LocalDate> dayList = List.copyOf(days);
+        for (int from = 0; from < dayList.size(); from += RELOAD_CHUNK_SIZE) {
+            List<LocalDate> chunk = dayList.subList(from,
+                    Math.min(dayList.size(), from + RELOAD_CHUNK_SIZE));
+            rollup.replaceDays(chunk, readDays(SELECT_DAYS + " WHERE day IN (:days)",
+                    new MapSqlParameterSource("days", chunk)));
+        }
+        List<Long> productList = List.copyOf(productIds);
+        for (int from = 0; from < productList.size(); from += RELOAD_CHUNK_SIZE) {
+            List<Long> chunk = productList.subList(from,
+                    Math.min(productList.size(), from + RELOAD_CHUNK_SIZE));
+            rollup.replaceProducts(chunk, readProductDays(
+                    SELECT_PRODUCT_DAYS + " WHERE product_id IN (:productIds)",
+                    new MapSqlParameterSource("productIds", chunk)));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.orders.stats.resync-interval:300000}",
+            initialDelayString = "${app.orders.stats.resync-interval:300000}")
+    public synchronized void resync() {
+        try {
+            rollup.replaceAll(readDays(SELECT_DAYS, new MapSqlParameterSource()),
+                    readProductDays(SELECT_PRODUCT_DAYS, new MapSqlParameterSource()));
+        } catch (RuntimeException e) {
+            logger.error("❌ Не удалось загрузить агрегаты заказов", e);
+        }
+    }
+
+    public List<OrderStatsBucketDto> getOrderStats(LocalDate from, LocalDate to,
+                                                   StatsBucket bucket) {
+        return rollup.buckets(from, to, bucket).stream()
+                .map(e -> new OrderStatsBucketDto(e.getKey(), e.getValue().orderCount(),
+                        e.getValue().revenue()))
+                .toList();
+    }
+
+    public ProductStatsDto getProductStats(long productId, LocalDate from, LocalDate to) {
+        StatsTotals totals = rollup.product(productId, from, to);
+        return new ProductStatsDto(productId, totals.orderCount(), totals.revenue());
+    }
+
+    public List<ProductStatsDto> getTopProducts(int limit, LocalDate from, LocalDate to) {
+        return rollup.topProducts(limit, from, to).stream()
+                .map(p -> new ProductStatsDto(p.productId(), p.totals().orderCount(),
+                        p.totals().revenue()))
+                .toList();
+    }
+
+    private static void collect(OrderContribution contribution, int sign,
+                                Map<LocalDate, StatsTotals> days,
+                                Map<ProductDay, StatsTotals> productDays) {
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        days.merge(contribution.day(),
+                new StatsTotals(sign, contribution.total().multiply(factor)), StatsTotals::plus);
+        contribution.productPrices().forEach((productId, price) -> productDays.merge(
+                new ProductDay(productId, contribution.day()),
+                new StatsTotals(sign, price.multiply(factor)), StatsTotals::plus));
+    }
+
+    private static MapSqlParameterSource params(StatsTotals totals) {
+        return new MapSqlParameterSource("orderCount", totals.orderCount())
+                .addValue("revenue", totals.revenue());
+    }
+
+    private Map<LocalDate, StatsTotals> readDays(String sql, MapSqlParameterSource params) {
+        Map<LocalDate, StatsTotals> rows = new HashMap<>();
+        jdbcTemplate.query(sql, params, rs -> {
+            rows.put(rs.getObject("day", LocalDate.class),
+                    new StatsTotals(rs.getLong("order_count"), rs.getBigDecimal("revenue")));
+        });
+        return rows;
+    }
+
+    private Map<Long, Map<LocalDate, StatsTotals>> readProductDays(
+            String sql, MapSqlParameterSource params) {
+        Map<Long, Map<LocalDate, StatsTotals>> rows = new HashMap<>();
+        jdbcTemplate.query(sql, params, rs -> {
+            rows.computeIfAbsent(rs.getLong("product_id"), id -> new HashMap<>())
+                    .put(rs.getObject("day", LocalDate.class),
+                            new StatsTotals(rs.getLong("order_count"),
+                                    rs.getBigDecimal("revenue")));
+        });
+        return rows;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.restservice.service;
+
+import com.example.restservice.dto.ImportProgressDto;
+import com.example.restservice.dto.ProductDto;
+import com.example.restservice.dto.ProductImportReportDto;
+import com.example.restservice.event.ProductChangedEvent;
+import com.example.restservice.exception.InvalidProductException;
+import com.example.restservice.mapper.ProductMapper;
+import com.example.restservice.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+    private static final String LINE_KEY = "line";
+    private static final String BOM = "\uFEFF"; // byte order mark
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int batchSize;
+
+    private final Map<String, ProductImportSession> activeImports = new ConcurrentHashMap<>();
+
+    public ProductImportService(EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ProductMapper productMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${app.products.import.chunk-size:1000}") int chunkSize,
+                                @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+                                int batchSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.productMapper = productMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    public ProductImportReportDto importProducts(List<ProductDto> products) {
+        ProductImportSession session = openSession();
+        products.forEach(session::accept);
+        return session.finish();
+    }
+
+    public ProductImportReportDto importNdjson(InputStream body) throws IOException {
+        return importStream(body, (reader, session) -> {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    session.accept(objectMapper.readValue(line, ProductDto.class));
+                } catch (JsonProcessingException e) {
+                    session.reject(Map.of(LINE_KEY, "Строка " + lineNumber
+                            + ": некорректный JSON (" + e.getOriginalMessage() + ")"));
+                }
+            }
+        });
+    }
+
+    public ProductImportReportDto importCsv(InputStream body) throws IOException {
+        return importStream(body, (reader, session) -> {
+            String header = reader.readLine();
+            if (header == null) {
+                return;
+            }
+            List<String> columns = parseCsvLine(header.replace(BOM, "")).stream()
+                    .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                    .toList();
+            int nameIndex = columns.indexOf("name");
+            int priceIndex = columns.indexOf("price");
+            if (nameIndex < 0 || priceIndex < 0) {
+                throw new InvalidProductException("CSV должен содержать заголовок с колонками "
+                        + "name и price");
+            }
+
+            String line;
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> values = parseCsvLine(line);
+                if (values.size() != columns.size()) {
+                    session.reject(Map.of(LINE_KEY, "Строка " + lineNumber
+                            + ": ожидалось колонок " + columns.size() + ", получено "
+                            + values.size()));
+                    continue;
+                }
+                ProductDto dto = new ProductDto();
+                dto.setName(values.get(nameIndex));
+                String price = values.get(priceIndex).trim();
+                try {
+                    dto.setPrice(price.isEmpty() ? null : new BigDecimal(price));
+                } catch (NumberFormatException e) {
+                    session.reject(Map.of("price", "Строка " + lineNumber
+                            + ": некорректная цена '" + price + "'"));
+                    continue;
+                }
+                session.accept(dto);
+            }
+        });
+    }
+
+    public List<ImportProgressDto> getActiveImports() {
+        List<ImportProgressDto> progress = new ArrayList<>();
+        activeImports.forEach((id, session) -> {
+            ProductImportReportDto report = session.getProgress();
+            progress.add(new ImportProgressDto(id, report.getReceived(), report.getSaved(),
+                    report.getRejected()));
+        });
+        return progress;
+    }
+
+    private ProductImportReportDto importStream(InputStream body, RecordReader recordReader)
+            throws IOException {
+        String importId = UUID.randomUUID().toString();
+        ProductImportSession session = openSession();
+        activeImports.put(importId, session);
+        logger.info("📥 Начат потоковый импорт товаров {}", importId);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            recordReader.read(reader, session);
+            ProductImportReportDto report = session.finish();
+            logger.info("✅ Импорт {} завершён: получено {}, сохранено {}, отклонено {}",
+                    importId, report.getReceived(), report.getSaved(), report.getRejected());
+            return report;
+        } finally {
+            activeImports.remove(importId);
+        }
+    }
+
+    // Поля через запятую, значения в кавычках могут содержать запятые и "" как кавычку
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    public ProductImportSession openSession() {
+        return new ProductImportSession(chunkSize, validator, productMapper, this::writeChunk);
+    }
+
+    @FunctionalInterface
+    private interface RecordReader {
+        void read(BufferedReader reader, ProductImportSession session) throws IOException;
+    }
+
+    // Каждая порция — отдельная транзакция: упавшая порция не откатывает уже записанные
+    private int writeChunk(List<Product> products) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < products.size(); i++) {
+                entityManager.persist(products.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            eventPublisher.publishEvent(ProductChangedEvent.created(products));
+        });
+        logger.info("📦 Записана порция из {} товаров", products.size());
+        return products.size();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.restservice.service;
+
+import com.example.restservice.dto.ImportChunkReportDto;
+import com.example.restservice.dto.ImportItemErrorDto;
+import com.example.restservice.dto.ProductDto;
+import com.example.restservice.dto.ProductImportReportDto;
+import com.example.restservice.mapper.ProductMapper;
+import com.example.restservice.model.Product;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Принимает товары по одному, проверяет их и сохраняет порциями по chunkSize позиций.
+ * Одновременно в памяти находится не больше одной порции, а отчёт не растёт с размером
+ * загрузки: кроме счётчиков в нём только первые MAX_ERROR_DETAILS отказов.
+ * <p>
+ * Отчёт меняет только поток импорта. Для запросов статуса после каждой порции
+ * публикуется неизменяемая копия, так что они не видят отчёт на середине правки.
+ */
+public class ProductImportSession {
+
+    static final int MAX_ERROR_DETAILS = 100;
+    // Сообщения могут цитировать исходную строку целиком
+    static final int MAX_MESSAGE_LENGTH = 200;
+
+    private final int chunkSize;
+    private final Validator validator;
+    private final ProductMapper productMapper;
+    private final ToIntFunction<List<Product>> chunkWriter;
+
+    private final ProductImportReportDto report = new ProductImportReportDto();
+    private final List<Product> buffer = new ArrayList<>();
+    private volatile ProductImportReportDto progress = snapshot(report);
+    private long firstItem;
+    private int itemsInChunk;
+
+    ProductImportSession(int chunkSize, Validator validator, ProductMapper productMapper,
+                         ToIntFunction<List<Product>> chunkWriter) {
+        this.chunkSize = chunkSize;
+        this.validator = validator;
+        this.productMapper = productMapper;
+        this.chunkWriter = chunkWriter;
+    }
+
+    public void accept(ProductDto dto) {
+        long item = nextItem();
+        Set<ConstraintViolation<ProductDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            buffer.add(productMapper.toEntity(dto));
+        } else {
+            Map<String, String> errors = new LinkedHashMap<>();
+            violations.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+            addRejected(item, errors);
+        }
+        completeItem();
+    }
+
+    public void reject(Map<String, String> errors) {
+        addRejected(nextItem(), errors);
+        completeItem();
+    }
+
+    public ProductImportReportDto finish() {
+        flush();
+        return report;
+    }
+
+    /**
+     * Состояние на конец последней порции; можно читать из любого потока.
+     */
+    public ProductImportReportDto getProgress() {
+        return progress;
+    }
+
+    private long nextItem() {
+        long item = report.getReceived();
+        report.setReceived(item + 1);
+        if (itemsInChunk == 0) {
+            firstItem = item;
+        }
+        return item;
+    }
+
+    private void addRejected(long item, Map<String, String> errors) {
+        report.setRejected(report.getRejected() + 1);
+        if (hasRoomForDetails()) {
+            Map<String, String> shortened = new LinkedHashMap<>();
+            errors.forEach((field, message) -> shortened.put(field, shorten(message)));
+            report.getRejectedItems().add(new ImportItemErrorDto(item, shortened));
+        } else {
+            report.setOmittedErrors(report.getOmittedErrors() + 1);
+        }
+    }
+
+    private void completeItem() {
+        itemsInChunk++;
+        if (itemsInChunk >= chunkSize) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (itemsInChunk == 0) {
+            return;
+        }
+        int chunk = report.getChunkCount();
+        report.setChunkCount(chunk + 1);
+        if (!buffer.isEmpty()) {
+            try {
+                report.setSaved(report.getSaved() + chunkWriter.applyAsInt(buffer));
+            } catch (RuntimeException e) {
+                report.setRejected(report.getRejected() + buffer.size());
+                if (hasRoomForDetails()) {
+                    report.getFailedChunks().add(new ImportChunkReportDto(chunk, firstItem,
+                            firstItem + itemsInChunk - 1, buffer.size(),
+                            shorten(e.getClass().getSimpleName() + ": " + e.getMessage())));
+                } else {
+                    report.setOmittedErrors(report.getOmittedErrors() + 1);
+                }
+            }
+        }
+        buffer.clear();
+        itemsInChunk = 0;
+        progress = snapshot(report);
+    }
+
+    private static ProductImportReportDto snapshot(ProductImportReportDto report) {
+        ProductImportReportDto copy = new ProductImportReportDto();
+        copy.setReceived(report.getReceived());
+        copy.setSaved(report.getSaved());
+        copy.setRejected(report.getRejected());
+        copy.setChunkCount(report.getChunkCount());
+        copy.setFailedChunks(List.copyOf(report.getFailedChunks()));
+        copy.setRejectedItems(List.copyOf(report.getRejectedItems()));
+        copy.setOmittedErrors(report.getOmittedErrors());
+        return copy;
+    }
+
+    private boolean hasRoomForDetails() {
+        return report.getRejectedItems().size() + report.getFailedChunks().size()
+                < MAX_ERROR_DETAILS;
+    }
+
+    private static String shorten(String message) {
+        if (message == null || message.length() <= MAX_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_MESSAGE_LENGTH) + "…";
+    }
+}
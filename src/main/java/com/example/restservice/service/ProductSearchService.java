@@ -0,0 +1,134 @@
+package com.example.restservice.service;
+
+import com.example.restservice.event.ChangeType;
+import com.example.restservice.event.ProductChangedEvent;
+import com.example.restservice.model.Product;
+import com.example.restservice.repository.KeysetSpecifications;
+import com.example.restservice.repository.ProductRepository;
+import com.example.restservice.repository.ProductSpecifications;
+import com.example.restservice.search.ProductNameIndex;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Service
+public class ProductSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+    private static final int LOAD_CHUNK_SIZE = 5000;
+
+    private final ProductRepository productRepository;
+    private final ProductNameIndex index = new ProductNameIndex();
+    // Порция из БД и событие об изменении её товара применяются под этим замком по очереди
+    private final Object indexLock = new Object();
+
+    private volatile boolean ready;
+    // Товары, изменённые во время перестройки: порция могла прочитать их до изменения,
+    // поэтому они берутся из событий, а не из порций. null вне перестройки
+    private Set<Long> changedDuringRebuild;
+
+    public ProductSearchService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuildIndex() {
+        ready = false;
+        synchronized (indexLock) {
+            changedDuringRebuild = new HashSet<>();
+            index.clear();
+        }
+        long lastId = 0;
+        Sort byId = Sort.by(ProductSpecifications.ID);
+        try {
+            List<Product> chunk;
+            do {
+                chunk = productRepository.findBy(KeysetSpecifications.idAfter(lastId, false),
+                        q -> q.sortBy(byId).limit(LOAD_CHUNK_SIZE).all());
+                load(chunk);
+                if (!chunk.isEmpty()) {
+                    lastId = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk.size() == LOAD_CHUNK_SIZE);
+            ready = true;
+            logger.info("🔎 Индекс названий товаров построен: {} товаров", index.size());
+        } catch (RuntimeException e) {
+            logger.error("❌ Не удалось построить индекс названий товаров, "
+                    + "подсказки будут идти из БД", e);
+        } finally {
+            synchronized (indexLock) {
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    private void load(List<Product> chunk) {
+        synchronized (indexLock) {
+            for (Product product : chunk) {
+                if (!changedDuringRebuild.contains(product.getId())) {
+                    index.upsert(product);
+                }
+            }
+        }
+    }
+
+    public List<Product> suggest(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        if (ready) {
+            return index.suggest(query, limit);
+        }
+        return productRepository.findBy(ProductSpecifications.nameStartsWith(query),
+                q -> q.sortBy(Sort.by(ProductSpecifications.NAME, ProductSpecifications.ID))
+                        .limit(limit).all());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            event.getProductIds().forEach(this::remove);
+        } else {
+            event.getProducts().forEach(this::upsert);
+        }
+    }
+
+    // Изменения с других узлов приходят только id: перечитываем товары, пропавшие удаляем
+    public void reindex(Collection<Long> ids) {
+        Set<Long> missing = new HashSet<>(ids);
+        for (Product product : productRepository.findAllById(ids)) {
+            upsert(product);
+            missing.remove(product.getId());
+        }
+        missing.forEach(this::remove);
+    }
+
+    private void upsert(Product product) {
+        synchronized (indexLock) {
+            markChanged(product.getId());
+            index.upsert(product);
+        }
+    }
+
+    private void remove(Long id) {
+        synchronized (indexLock) {
+            markChanged(id);
+            index.remove(id);
+        }
+    }
+
+    private void markChanged(Long id) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+    }
+}
@@ -1,34 +1,174 @@
 package com.example.restservice.service;
 
+import com.example.restservice.cache.ProductCatalog;
+import com.example.restservice.cache.ProductCatalogSnapshot;
+import com.example.restservice.dto.BulkDeleteReportDto;
+import com.example.restservice.dto.BulkUpdateReportDto;
+import com.example.restservice.dto.CursorPageDto;
+import com.example.restservice.dto.PageCursor;
 import com.example.restservice.dto.ProductDto;
+import com.example.restservice.dto.ProductPageQuery;
+import com.example.restservice.dto.ProductUpdateDto;
+import com.example.restservice.event.ProductChangedEvent;
+import com.example.restservice.exception.InvalidPageRequestException;
 import com.example.restservice.exception.InvalidProductException;
 import com.example.restservice.exception.ProductInOrderException;
 import com.example.restservice.mapper.ProductMapper;
-import com.example.restservice.model.Order;
 import com.example.restservice.model.Product;
+import com.example.restservice.repository.KeysetSpecifications;
 import com.example.restservice.repository.OrderRepository;
 import com.example.restservice.repository.ProductRepository;
+import com.example.restservice.repository.ProductSpecifications;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
     private final OrderRepository orderRepository;
+    private final ProductCatalog productCatalog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderStatsService orderStatsService;
 
     public ProductService(ProductRepository productRepository,
-                          ProductMapper productMapper, OrderRepository orderRepository) {
+                          ProductMapper productMapper, OrderRepository orderRepository,
+                          ProductCatalog productCatalog,
+                          ApplicationEventPublisher eventPublisher,
+                          OrderStatsService orderStatsService) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
         this.orderRepository = orderRepository;
+        this.productCatalog = productCatalog;
+        this.eventPublisher = eventPublisher;
+        this.orderStatsService = orderStatsService;
     }
 
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return productCatalog.current().getProducts();
+    }
+
+    public ProductCatalogSnapshot getCatalogSnapshot() {
+        return productCatalog.current();
+    }
+
+    public CursorPageDto<Product> getProductsPage(ProductPageQuery query) {
+        String sortField = query.getSort();
+        boolean descending = query.isDescending();
+
+        Specification<Product> spec = Specification
+                .where(ProductSpecifications.nameStartsWith(query.getNamePrefix()))
+                .and(ProductSpecifications.priceAtLeast(query.getMinPrice()))
+                .and(ProductSpecifications.priceAtMost(query.getMaxPrice()));
+        PageCursor cursor = null;
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            cursor = PageCursor.decode(query.getCursor(), sortField, descending);
+        }
+
+        // Запрашиваем на одну строку больше, чтобы узнать о следующей странице без COUNT
+        int size = query.getSize();
+        List<Product> rows;
+        if (ProductSpecifications.PRICE.equals(sortField)) {
+            boolean priceFiltered = query.getMinPrice() != null || query.getMaxPrice() != null;
+            rows = findByPrice(spec, cursor, descending, size + 1, priceFiltered);
+        } else {
+            if (cursor != null) {
+                spec = spec.and(keysetAfter(cursor));
+            }
+            Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+            Sort sort = ProductSpecifications.ID.equals(sortField)
+                    ? Sort.by(direction, ProductSpecifications.ID)
+                    : Sort.by(direction, sortField, ProductSpecifications.ID);
+            rows = find(spec, sort, size + 1);
+        }
+
+        if (rows.size() <= size) {
+            return new CursorPageDto<>(rows, null);
+        }
+        List<Product> page = rows.subList(0, size);
+        Product last = page.get(size - 1);
+        String nextCursor = new PageCursor(sortField, descending, last.getId(),
+                sortValue(last, sortField)).encode();
+        return new CursorPageDto<>(List.copyOf(page), nextCursor);
+    }
+
+    // Товары без цены идут после остальных в обоих направлениях, между собой — по id.
+    // Части с ценой и без неё читаются отдельно, каждая по порядку индекса (price, id);
+    // курсор с пустым значением указывает на часть без цены
+    private List<Product> findByPrice(Specification<Product> spec, PageCursor cursor,
+                                      boolean descending, int limit, boolean priceFiltered) {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        boolean inUnpriced = cursor != null && cursor.getLastValue().isEmpty();
+        List<Product> rows = new ArrayList<>();
+        if (!inUnpriced) {
+            Specification<Product> priced = spec.and(ProductSpecifications.hasPrice());
+            if (cursor != null) {
+                priced = priced.and(keysetAfter(cursor));
+            }
+            rows.addAll(find(priced, Sort.by(direction, ProductSpecifications.PRICE,
+                    ProductSpecifications.ID), limit));
+        }
+        // Фильтр по цене отсекает товары без неё и так
+        if (rows.size() < limit && !priceFiltered) {
+            Specification<Product> unpriced = spec.and(ProductSpecifications.hasNoPrice());
+            if (inUnpriced) {
+                unpriced = unpriced.and(KeysetSpecifications.idAfter(cursor.getLastId(),
+                        descending));
+            }
+            rows.addAll(find(unpriced, Sort.by(direction, ProductSpecifications.ID),
+                    limit - rows.size()));
+        }
+        return rows;
+    }
+
+    private List<Product> find(Specification<Product> spec, Sort sort, int limit) {
+        return productRepository.findBy(spec, q -> q.sortBy(sort).limit(limit).all());
+    }
+
+    private static Specification<Product> keysetAfter(PageCursor cursor) {
+        String value = cursor.getLastValue();
+        try {
+            return switch (cursor.getSort()) {
+                case ProductSpecifications.PRICE -> KeysetSpecifications.after(
+                        ProductSpecifications.PRICE, new BigDecimal(value),
+                        cursor.getLastId(), cursor.isDescending());
+                case ProductSpecifications.NAME -> KeysetSpecifications.after(
+                        ProductSpecifications.NAME, value,
+                        cursor.getLastId(), cursor.isDescending());
+                default -> KeysetSpecifications.idAfter(cursor.getLastId(),
+                        cursor.isDescending());
+            };
+        } catch (NumberFormatException e) {
+            throw new InvalidPageRequestException("Некорректный курсор страницы");
+        }
+    }
+
+    private static String sortValue(Product product, String sortField) {
+        return switch (sortField) {
+            case ProductSpecifications.PRICE -> product.getPrice() != null
+                    ? product.getPrice().toPlainString() : null;
+            case ProductSpecifications.NAME -> product.getName();
+            default -> null;
+        };
     }
 
     public Optional<Product> getProductById(Long id) {
@@ -39,49 +179,147 @@ public class ProductService {
         if ("Test".equalsIgnoreCase(product.getName())) {
             throw new InvalidProductException("Нельзя создавать товар с именем 'Test'");
         }
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.created(List.of(saved)));
+        return saved;
     }
 
+    @Transactional
     public Optional<Product> updateProduct(Long id, Product updatedProduct) {
-        return productRepository.findById(id)
+        return productRepository.findByIdForUpdate(id)
                 .map(existing -> {
+                    BigDecimal oldPrice = existing.getPrice();
+                    final String oldNameKey = Product.normalizeName(existing.getName());
                     existing.setName(updatedProduct.getName());
                     existing.setPrice(updatedProduct.getPrice());
 
                     Product saved = productRepository.save(existing);
 
-                    // 💥 Перерасчёт всех заказов, где используется обновлённый продукт
-                    List<Order> affectedOrders = orderRepository
-                            .findOrdersByProductName(saved.getName());
-
-                    for (Order order : affectedOrders) {
-                        order.recalculateTotalAmount();
-                    }
+                    int recalculated = repriceOrders(saved.getId(), oldPrice, saved.getPrice());
+                    logger.info("💰 Товар {} обновлён, пересчитано заказов: {}",
+                            saved.getId(), recalculated);
 
-                    orderRepository.saveAll(affectedOrders);
+                    eventPublisher.publishEvent(
+                            ProductChangedEvent.updated(List.of(saved), Set.of(oldNameKey)));
 
                     return saved;
                 });
     }
 
 
-    public boolean deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            return false;
+    @Transactional
+    public BulkUpdateReportDto updateProducts(List<ProductUpdateDto> updates) {
+        Map<Long, ProductUpdateDto> byId = new LinkedHashMap<>();
+        updates.forEach(update -> byId.put(update.getId(), update));
+
+        Map<Long, Product> existing = new HashMap<>();
+        productRepository.findAllByIdForUpdate(byId.keySet())
+                .forEach(p -> existing.put(p.getId(), p));
+
+        List<Product> updated = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        Map<Long, BigDecimal> priceDeltas = new TreeMap<>();
+        Set<String> previousNameKeys = new HashSet<>();
+        byId.forEach((id, update) -> {
+            Product product = existing.get(id);
+            if (product == null) {
+                notFound.add(id);
+                return;
+            }
+            BigDecimal delta = orZero(update.getPrice()).subtract(orZero(product.getPrice()));
+            if (delta.signum() != 0) {
+                priceDeltas.put(id, delta);
+            }
+            previousNameKeys.add(Product.normalizeName(product.getName()));
+            product.setName(update.getName());
+            product.setPrice(update.getPrice());
+            updated.add(product);
+        });
+
+        int recalculated = shiftOrders(priceDeltas);
+        logger.info("💰 Обновлено товаров: {}, пересчитано заказов: {}",
+                updated.size(), recalculated);
+
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(ProductChangedEvent.updated(updated, previousNameKeys));
+        }
+        return new BulkUpdateReportDto(updated, notFound, recalculated);
+    }
+
+    // Сдвигает суммы всех заказов с товаром на разницу цен одним UPDATE, агрегаты — так же.
+    // oldPrice должна быть прочитана под блокировкой строки товара в этой же транзакции
+    @Transactional
+    public int repriceOrders(Long productId, BigDecimal oldPrice, BigDecimal newPrice) {
+        BigDecimal delta = orZero(newPrice).subtract(orZero(oldPrice));
+        if (delta.signum() == 0) {
+            return 0;
+        }
+        return shiftOrders(Map.of(productId, delta));
+    }
+
+    // Одиночное и массовое обновление сдвигают суммы заказов и агрегаты одинаково — на
+    // разницу цен. Заказ с несколькими изменёнными товарами сдвигается одним UPDATE
+    // на сумму их разниц и входит в возвращаемое число один раз
+    private int shiftOrders(Map<Long, BigDecimal> priceDeltas) {
+        if (priceDeltas.isEmpty()) {
+            return 0;
         }
+        orderRepository.lockOrdersWithProducts(priceDeltas.keySet());
+        int shifted = orderRepository.shiftTotalsForProducts(
+                priceDeltas.keySet().toArray(Long[]::new),
+                priceDeltas.values().toArray(BigDecimal[]::new));
+        orderStatsService.recordReprice(priceDeltas);
+        return shifted;
+    }
 
-        Product product = productRepository.findById(id).orElseThrow();
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
 
-        boolean inUse = !orderRepository.findOrdersByProductName(product.getName()).isEmpty();
-        if (inUse) {
+    @Transactional
+    public boolean deleteProduct(Long id) {
+        if (productRepository.deleteIfUnused(id) == 0) {
+            // Дополнительный запрос только на неуспешном пути: нет товара или он в заказах
+            if (!productRepository.existsById(id)) {
+                return false;
+            }
             throw new ProductInOrderException("Товар используется в "
                     + "заказах и не может быть удалён.");
         }
 
-        productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(List.of(id)));
         return true;
     }
 
+    @Transactional
+    public BulkDeleteReportDto deleteProducts(List<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Set<Long> existing = new HashSet<>(productRepository.findExistingIds(requested));
+        Set<Long> remaining = Set.of();
+        if (!existing.isEmpty()) {
+            // Всё, что существовало и осталось после удаления, удержано заказами
+            productRepository.deleteAllUnused(existing);
+            remaining = new HashSet<>(productRepository.findExistingIds(existing));
+        }
+
+        List<Long> deleted = new ArrayList<>();
+        List<Long> blocked = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : requested) {
+            if (!existing.contains(id)) {
+                notFound.add(id);
+            } else if (remaining.contains(id)) {
+                blocked.add(id);
+            } else {
+                deleted.add(id);
+            }
+        }
+        if (!deleted.isEmpty()) {
+            eventPublisher.publishEvent(ProductChangedEvent.deleted(deleted));
+        }
+        return new BulkDeleteReportDto(deleted, blocked, notFound);
+    }
+
 
     @Transactional
     public List<ProductDto> createProducts(List<ProductDto> productDtos) {
@@ -90,6 +328,7 @@ public class ProductService {
                 .toList();
 
         productRepository.saveAll(newProducts);
+        eventPublisher.publishEvent(ProductChangedEvent.created(newProducts));
 
         return newProducts.stream()
                 .map(productMapper::toDto)
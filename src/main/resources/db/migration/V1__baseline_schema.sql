@@ -0,0 +1,32 @@
+-- Схема, которую раньше создавал ddl-auto=update. Все операторы идемпотентны,
+-- чтобы миграция проходила и на пустой базе, и на уже существующей.
+
+CREATE TABLE IF NOT EXISTS products (
+    id    BIGINT PRIMARY KEY,
+    name  VARCHAR(255),
+    price NUMERIC(38, 2)
+);
+
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS orders (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    customer_name VARCHAR(255)   NOT NULL,
+    total_amount  NUMERIC(38, 2) NOT NULL,
+    order_date    TIMESTAMP(6)   NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_product (
+    order_id   BIGINT NOT NULL REFERENCES orders (id),
+    product_id BIGINT NOT NULL REFERENCES products (id),
+    PRIMARY KEY (order_id, product_id)
+);
+
+-- Первичный ключ покрывает поиск по order_id, обратное направление — этот индекс
+CREATE INDEX IF NOT EXISTS idx_order_product_product_id ON order_product (product_id);
+
+-- Товары раньше получали id через IDENTITY, поэтому products_seq может отставать
+-- от уже выданных значений. Шаг совпадает с Product.ID_ALLOCATION_SIZE.
+SELECT setval('products_seq', m.max_id + 50, false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM products) m, products_seq s
+WHERE s.last_value <= m.max_id;
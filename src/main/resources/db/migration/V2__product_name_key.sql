@@ -0,0 +1,13 @@
+-- Нормализованное название для поиска без LOWER() по всей таблице.
+-- Правило совпадает с Product.normalizeName: обрезать края, схлопнуть пробелы, нижний регистр.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS name_key VARCHAR(255);
+
+UPDATE products
+SET name_key = lower(regexp_replace(regexp_replace(COALESCE(name, ''), '\s+', ' ', 'g'),
+                                    '^ | $', '', 'g'))
+WHERE name_key IS NULL;
+
+ALTER TABLE products ALTER COLUMN name_key SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_products_name_key ON products (name_key);
@@ -0,0 +1,32 @@
+-- Агрегаты для аналитики заказов. Поддерживаются инкрементально в тех же транзакциях,
+-- что меняют заказы и цены, поэтому дашборды не сканируют orders и order_product.
+-- Выручка товара — число заказов с ним, умноженное на текущую цену, как и в total_amount.
+
+CREATE TABLE IF NOT EXISTS order_stats_daily (
+    day         DATE           PRIMARY KEY,
+    order_count BIGINT         NOT NULL,
+    revenue     NUMERIC(38, 2) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_stats_product_daily (
+    product_id  BIGINT         NOT NULL,
+    day         DATE           NOT NULL,
+    order_count BIGINT         NOT NULL,
+    revenue     NUMERIC(38, 2) NOT NULL,
+    PRIMARY KEY (product_id, day)
+);
+
+-- Однократное заполнение по уже существующим заказам
+INSERT INTO order_stats_daily (day, order_count, revenue)
+SELECT CAST(o.order_date AS DATE), COUNT(*), SUM(o.total_amount)
+FROM orders o
+GROUP BY CAST(o.order_date AS DATE)
+ON CONFLICT (day) DO NOTHING;
+
+INSERT INTO order_stats_product_daily (product_id, day, order_count, revenue)
+SELECT op.product_id, CAST(o.order_date AS DATE), COUNT(*), SUM(COALESCE(p.price, 0))
+FROM order_product op
+         JOIN orders o ON o.id = op.order_id
+         JOIN products p ON p.id = op.product_id
+GROUP BY op.product_id, CAST(o.order_date AS DATE)
+ON CONFLICT (product_id, day) DO NOTHING;
@@ -0,0 +1,7 @@
+-- Билет асинхронного приёма, с которым записан заказ. По нему повтор журнала после
+-- сбоя узнаёт уже зафиксированные заказы и не создаёт их второй раз.
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS ingest_ticket UUID;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_orders_ingest_ticket ON orders (ingest_ticket)
+    WHERE ingest_ticket IS NOT NULL;
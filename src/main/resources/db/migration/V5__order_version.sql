@@ -0,0 +1,4 @@
+-- Версия заказа для оптимистичной блокировки. Прямые правки строк и сумм тоже
+-- увеличивают её, так что сохранение устаревшей копии заказа обнаруживается.
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- Keyset-страницы каталога сортируются по (price, id) или (name, id): с этими индексами
+-- страница читается по порядку индекса, без сортировки всей выборки.
+
+CREATE INDEX IF NOT EXISTS idx_products_price_id ON products (price, id);
+CREATE INDEX IF NOT EXISTS idx_products_name_id ON products (name, id);
+
+-- Фильтр по началу названия — LIKE 'префикс%' по name_key. Обычный индекс годится
+-- для LIKE только при локали C, text_pattern_ops — при любой.
+CREATE INDEX IF NOT EXISTS idx_products_name_key_prefix ON products (name_key text_pattern_ops);
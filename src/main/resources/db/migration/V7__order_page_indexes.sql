@@ -0,0 +1,9 @@
+-- Keyset-страницы заказов по дате сортируются по (order_date, id): с индексом страница
+-- и фильтр по периоду читаются по порядку индекса, без сортировки всей выборки.
+
+CREATE INDEX IF NOT EXISTS idx_orders_order_date_id ON orders (order_date, id);
+
+-- Фильтр по началу имени клиента — lower(customer_name) LIKE 'префикс%'. Индекс строится
+-- по тому же выражению; text_pattern_ops нужен для LIKE при любой локали.
+CREATE INDEX IF NOT EXISTS idx_orders_customer_name_prefix
+    ON orders (lower(customer_name) text_pattern_ops);
@@ -0,0 +1,82 @@
+package com.example.restservice.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderStatsRollupTest {
+
+    private static final LocalDate MON = LocalDate.of(2026, 3, 2);
+    private static final LocalDate TUE = MON.plusDays(1);
+    private static final LocalDate NEXT_MON = MON.plusWeeks(1);
+
+    private final OrderStatsRollup rollup = new OrderStatsRollup();
+
+    @BeforeEach
+    void setUp() {
+        rollup.replaceAll(
+                Map.of(MON, totals(2, "30.00"), TUE, totals(1, "5.00"),
+                        NEXT_MON, totals(4, "100.00")),
+                Map.of(1L, Map.of(MON, totals(2, "20.00"), NEXT_MON, totals(1, "10.00")),
+                        2L, Map.of(TUE, totals(1, "5.00"), NEXT_MON, totals(3, "90.00"))));
+    }
+
+    @Test
+    void testBuckets_groupsDaysByWeekInsideRange() {
+        List<Map.Entry<LocalDate, StatsTotals>> weeks = rollup.buckets(null, null,
+                StatsBucket.WEEK);
+
+        assertThat(weeks).containsExactly(Map.entry(MON, totals(3, "35.00")),
+                Map.entry(NEXT_MON, totals(4, "100.00")));
+        assertThat(rollup.buckets(TUE, NEXT_MON, StatsBucket.DAY))
+                .containsExactly(Map.entry(TUE, totals(1, "5.00")));
+        assertThat(rollup.buckets(NEXT_MON, MON, StatsBucket.DAY)).isEmpty();
+    }
+
+    @Test
+    void testTopProducts_ranksByRevenueForPeriod() {
+        assertThat(rollup.topProducts(1, null, null))
+                .containsExactly(new OrderStatsRollup.ProductTotals(2L, totals(4, "95.00")));
+        assertThat(rollup.topProducts(5, MON, NEXT_MON)).containsExactly(
+                new OrderStatsRollup.ProductTotals(1L, totals(2, "20.00")),
+                new OrderStatsRollup.ProductTotals(2L, totals(1, "5.00")));
+    }
+
+    @Test
+    void testReplace_overwritesRowsAndDropsMissingOrEmptyOnes() {
+        rollup.replaceDays(List.of(MON, TUE), Map.of(MON, totals(1, "10.00"),
+                TUE, StatsTotals.ZERO));
+        rollup.replaceProducts(List.of(1L, 2L), Map.of(1L, Map.of(MON, totals(1, "10.00"))));
+
+        assertThat(rollup.buckets(MON, NEXT_MON, StatsBucket.DAY))
+                .containsExactly(Map.entry(MON, totals(1, "10.00")));
+        assertThat(rollup.product(1L, null, null)).isEqualTo(totals(1, "10.00"));
+        assertThat(rollup.product(2L, null, null)).isEqualTo(StatsTotals.ZERO);
+    }
+
+    @Test
+    void testTopProducts_rankingFollowsReplacedAndDroppedProducts() {
+        rollup.replaceProducts(List.of(1L, 3L), Map.of(
+                1L, Map.of(MON, totals(5, "200.00")),
+                3L, Map.of(TUE, totals(1, "50.00"))));
+
+        assertThat(rollup.topProducts(2, null, null)).containsExactly(
+                new OrderStatsRollup.ProductTotals(1L, totals(5, "200.00")),
+                new OrderStatsRollup.ProductTotals(2L, totals(4, "95.00")));
+
+        rollup.replaceAll(Map.of(), Map.of(3L, Map.of(TUE, totals(1, "50.00"))));
+
+        assertThat(rollup.topProducts(5, null, null))
+                .containsExactly(new OrderStatsRollup.ProductTotals(3L, totals(1, "50.00")));
+    }
+
+    private static StatsTotals totals(long orders, String revenue) {
+        return new StatsTotals(orders, new BigDecimal(revenue));
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.service.OrderBasketService;
+import com.example.restservice.service.ProductSearchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterCacheBusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private OrderCache orderCache;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    @Mock
+    private ProductSearchService productSearchService;
+
+    @Mock
+    private OrderBasketService orderBasketService;
+
+    private ClusterCacheBus bus;
+
+    @BeforeEach
+    void setUp() {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl("jdbc:postgresql://localhost:5432/database");
+        bus = new ClusterCacheBus(dataSourceProperties, jdbcTemplate, objectMapper, orderCache,
+                productCatalog, productSearchService, orderBasketService, true,
+                "cache_invalidation", Duration.ofSeconds(1), Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testFlushPending_sendsDeduplicatedKeysInOneNotify() throws Exception {
+        bus.publishOrderKeys(Set.of("laptop", "mouse"));
+        bus.publishOrderKeys(Set.of("laptop"));
+
+        bus.flushPending();
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq("cache_invalidation"), payload.capture());
+        CacheInvalidationMessage message = objectMapper.readValue((String) payload.getValue(),
+                CacheInvalidationMessage.class);
+        assertThat(message.getOrderKeys()).containsExactlyInAnyOrder("laptop", "mouse");
+
+        bus.flushPending();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testDrainPending_splitsLargeBatchesUnderPayloadLimit() throws Exception {
+        bus.publishOrderKeys(IntStream.range(0, 2000).mapToObj(i -> "product " + i).toList());
+
+        List<CacheInvalidationMessage> messages = bus.drainPending();
+
+        assertThat(messages).hasSizeGreaterThan(1);
+        for (CacheInvalidationMessage message : messages) {
+            assertThat(objectMapper.writeValueAsString(message)
+                    .getBytes(StandardCharsets.UTF_8).length)
+                    .isLessThan(ClusterCacheBus.MAX_PAYLOAD_BYTES);
+        }
+        assertThat(messages.stream().mapToInt(m -> m.getOrderKeys().size()).sum())
+                .isEqualTo(2000);
+    }
+
+    @Test
+    void testFlushPending_requeuesWhenNotifyFails() {
+        bus.publishOrderKeys(Set.of("laptop"));
+        doThrow(new DataAccessResourceFailureException("down")).when(jdbcTemplate)
+                .query(anyString(), any(ResultSetExtractor.class), any(), any());
+
+        bus.flushPending();
+
+        assertThat(bus.drainPending()).singleElement()
+                .satisfies(m -> assertThat(m.getOrderKeys()).containsExactly("laptop"));
+    }
+
+    @Test
+    void testApply_mergesForeignMessagesAndSkipsOwn() throws Exception {
+        bus.publishOrderKeys(Set.of("own"));
+        String own = objectMapper.writeValueAsString(bus.drainPending().get(0));
+        String first = foreign(List.of("laptop", "mouse"), List.of());
+        String second = foreign(List.of("laptop"), List.of(5L));
+        CacheInvalidationMessage orders = new CacheInvalidationMessage();
+        orders.setNode("other");
+        orders.setOrderIds(List.of(7L, 8L));
+
+        bus.apply(List.of(own, first, second, objectMapper.writeValueAsString(orders),
+                "not json"));
+
+        verify(orderCache).invalidate("laptop");
+        verify(orderCache).invalidate("mouse");
+        verify(orderCache, never()).invalidate("own");
+        verify(productCatalog).invalidate();
+        verify(productSearchService).reindex(Set.of(5L));
+        verify(orderBasketService).refresh(Set.of(7L, 8L));
+    }
+
+    @Test
+    void testApply_clearOrdersReplacesPointInvalidation() throws Exception {
+        CacheInvalidationMessage message = new CacheInvalidationMessage();
+        message.setNode("other");
+        message.setClearOrders(true);
+
+        bus.apply(List.of(objectMapper.writeValueAsString(message),
+                foreign(List.of("laptop"), List.of())));
+
+        verify(orderCache).clear();
+        verify(orderCache, never()).invalidate(anyString());
+        verifyNoInteractions(productCatalog, productSearchService, orderBasketService);
+    }
+
+    @Test
+    void testDeliver_failedBatchFallsBackToFullFlushUntilItSucceeds() throws Exception {
+        doThrow(new DataAccessResourceFailureException("down"))
+                .doNothing()
+                .when(productSearchService).reindex(any());
+        doThrow(new DataAccessResourceFailureException("down"))
+                .doNothing()
+                .when(productSearchService).rebuildIndex();
+
+        boolean stale = bus.deliver(List.of(foreign(List.of(), List.of(5L))), false);
+        assertThat(stale).isTrue();
+
+        // Первый полный сброс тоже падает, второй проходит; новая пачка им покрыта
+        stale = bus.deliver(List.of(), stale);
+        assertThat(stale).isTrue();
+        stale = bus.deliver(List.of(foreign(List.of("laptop"), List.of())), stale);
+        assertThat(stale).isFalse();
+
+        verify(productSearchService, times(2)).rebuildIndex();
+        verify(orderBasketService).rebuildIndex();
+        verify(orderCache, never()).invalidate("laptop");
+    }
+
+    @Test
+    void testOnSubscribed_onlyReconnectsAreStale() throws Exception {
+        assertThat(bus.onSubscribed()).isFalse();
+        assertThat(bus.awaitSubscription(Duration.ofMillis(1))).isTrue();
+        assertThat(bus.onSubscribed()).isTrue();
+    }
+
+    @Test
+    void testOnSubscribed_lateFirstSubscriptionIsStale() throws Exception {
+        // Узел не дождался подписки и начал прогрев без неё
+        assertThat(bus.awaitSubscription(Duration.ofMillis(10))).isFalse();
+
+        assertThat(bus.onSubscribed()).isTrue();
+    }
+
+    private String foreign(List<String> keys, List<Long> productIds) throws Exception {
+        CacheInvalidationMessage message = new CacheInvalidationMessage();
+        message.setNode("other");
+        message.setOrderKeys(keys);
+        message.setProductIds(productIds);
+        return objectMapper.writeValueAsString(message);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.restservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OffHeapStoreTest {
+
+    @Test
+    void testPut_valueSpansBlocksAndReadsBack() {
+        OffHeapStore<String> store = new OffHeapStore<>(64, 16);
+        byte[] value = bytes(40, 7);
+
+        assertThat(store.put("a", "meta", value)).isTrue();
+
+        OffHeapStore.Hit<String> hit = store.get("a");
+        assertThat(hit.meta()).isEqualTo("meta");
+        assertThat(hit.data()).isEqualTo(value);
+        assertThat(store.usedBytes()).isEqualTo(48);
+    }
+
+    @Test
+    void testPut_evictsLeastRecentlyReadWhenFull() {
+        OffHeapStore<String> store = new OffHeapStore<>(64, 16);
+        store.put("a", "a", bytes(32, 1));
+        store.put("b", "b", bytes(32, 2));
+        store.get("a");
+
+        store.put("c", "c", bytes(20, 3));
+
+        assertThat(store.get("b")).isNull();
+        assertThat(store.get("a").data()).isEqualTo(bytes(32, 1));
+        assertThat(store.get("c").data()).isEqualTo(bytes(20, 3));
+        assertThat(store.put("huge", "h", bytes(65, 4))).isFalse();
+    }
+
+    @Test
+    void testRemove_onlyMatchingMetaAndFreesBlocks() {
+        OffHeapStore<String> store = new OffHeapStore<>(64, 16);
+        store.put("a", "v1", bytes(16, 1));
+
+        assertThat(store.remove("a", "v2")).isFalse();
+        assertThat(store.remove("a", store.get("a").meta())).isTrue();
+        assertThat(store.size()).isZero();
+        assertThat(store.usedBytes()).isZero();
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] value = new byte[length];
+        Arrays.setAll(new int[length], i -> value[i] = (byte) (seed * 31 + i));
+        return value;
+    }
+}
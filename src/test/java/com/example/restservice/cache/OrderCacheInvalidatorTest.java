@@ -0,0 +1,77 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.event.ChangeType;
+import com.example.restservice.event.OrderChangedEvent;
+import com.example.restservice.event.ProductChangedEvent;
+import com.example.restservice.model.Product;
+import com.example.restservice.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCacheInvalidatorTest {
+
+    @Mock
+    private OrderCache orderCache;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ClusterCacheBus clusterCacheBus;
+
+    @InjectMocks
+    private OrderCacheInvalidator invalidator;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        product = new Product();
+        product.setId(1L);
+        product.setName("Gaming Laptop");
+        product.setPrice(BigDecimal.TEN);
+    }
+
+    @Test
+    void testOnOrderChanged_invalidatesEveryProductKey() {
+        invalidator.onOrderChanged(new OrderChangedEvent(ChangeType.UPDATED, 7L,
+                Set.of("laptop", "mouse")));
+
+        verify(orderCache).invalidate("laptop");
+        verify(orderCache).invalidate("mouse");
+        verify(clusterCacheBus).publishOrderKeys(Set.of("laptop", "mouse"));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void testOnProductUpdated_invalidatesPreviousAndCoOrderedKeys() {
+        when(orderRepository.findNameKeysOrderedWith(Set.of(1L)))
+                .thenReturn(List.of("gaming laptop", "mouse"));
+
+        invalidator.onProductChanged(ProductChangedEvent.updated(List.of(product), Set.of("laptop")));
+
+        verify(orderCache).invalidate("laptop");
+        verify(orderCache).invalidate("gaming laptop");
+        verify(orderCache).invalidate("mouse");
+        verify(clusterCacheBus).publishOrderKeys(Set.of("laptop", "gaming laptop", "mouse"));
+    }
+
+    @Test
+    void testOnProductCreatedOrDeleted_leavesOrderCacheAlone() {
+        invalidator.onProductChanged(ProductChangedEvent.created(List.of(product)));
+        invalidator.onProductChanged(ProductChangedEvent.deleted(List.of(1L)));
+
+        verifyNoInteractions(orderCache, orderRepository, clusterCacheBus);
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.exception.CacheLoadTimeoutException;
+import com.example.restservice.model.Order;
+import com.example.restservice.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderCacheTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void testGet_expiresAfterTtl() {
+        OrderCache cache = cache(100_000, 0, TIMEOUT);
+        cache.put("Laptop", List.of(order(1L)));
+
+        nanos.addAndGet(Duration.ofMinutes(29).toNanos());
+        assertThat(cache.get("Laptop")).hasSize(1);
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertThat(cache.get("Laptop")).isNull();
+        assertThat(cache.contains("Laptop")).isFalse();
+    }
+
+    @Test
+    void testGet_jitteredTtlStaysWithinBounds() {
+        OrderCache cache = cache(100_000, 0.2, TIMEOUT);
+        cache.put("Laptop", List.of(order(1L)));
+
+        nanos.addAndGet(Duration.ofMinutes(23).toNanos());
+        assertThat(cache.get("Laptop")).isNotNull();
+
+        nanos.addAndGet(Duration.ofMinutes(14).toNanos());
+        assertThat(cache.get("Laptop")).isNull();
+    }
+
+    @Test
+    void testPut_boundedByEstimatedMemoryNotEntryCount() {
+        OrderCache cache = cache(10_000, 0, TIMEOUT);
+        List<Order> large = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            large.add(order(id));
+        }
+
+        cache.put("Big", large);
+        cache.put("Small", List.of(order(100L)));
+
+        assertThat(cache.contains("Big")).isFalse();
+        assertThat(cache.contains("Small")).isTrue();
+        assertThat(cache.estimatedBytes("Small")).isBetween(200L, 2_000L);
+        assertThat(cache.estimatedTotalBytes()).isEqualTo(cache.estimatedBytes("Small"));
+    }
+
+    @Test
+    void testPut_storesImmutableSnapshotsWithSharedProducts() {
+        OrderCache cache = cache(100_000, 0, TIMEOUT);
+        Order first = order(1L);
+        Order second = order(1L);
+        second.setId(2L);
+
+        cache.put("Laptop", List.of(first));
+        cache.put("Gaming Laptop", List.of(second));
+        first.setCustomerName("Mallory");
+
+        OrderSnapshot cached = cache.get("Laptop").get(0);
+        assertThat(cached.customerName()).isEqualTo("Alice");
+        assertThat(cached.products().get(0))
+                .isSameAs(cache.get("Gaming Laptop").get(0).products().get(0));
+        assertThatThrownBy(() -> cached.products().clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void testPut_largeEntryGoesOffHeapAndRoundTrips() {
+        OrderCache cache = offHeapCache(100_000, 1 << 20, 2_000);
+        List<Order> large = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            large.add(order(id));
+        }
+
+        cache.put("Big", large);
+
+        assertThat(cache.estimatedTotalBytes()).isZero();
+        assertThat(cache.offHeapUsedBytes()).isPositive();
+        List<OrderSnapshot> cached = cache.get("Big");
+        assertThat(cached).hasSize(20);
+        assertThat(cached.get(0)).isEqualTo(OrderSnapshot.of(large.get(0), p -> p));
+        assertThat(cached.get(0).products().get(0))
+                .isSameAs(cache.get("Big").get(0).products().get(0));
+
+        cache.invalidate("Big");
+        assertThat(cache.contains("Big")).isFalse();
+        assertThat(cache.offHeapUsedBytes()).isZero();
+    }
+
+    @Test
+    void testPut_sizeEvictionDemotesAndReadPromotes() {
+        OrderCache cache = offHeapCache(1_000, 1 << 20, 100_000);
+
+        cache.put("A", List.of(order(1L)));
+        cache.put("B", List.of(order(2L)));
+        cache.put("C", List.of(order(3L)));
+
+        assertThat(cache.offHeapUsedBytes()).isPositive();
+        assertThat(cache.estimatedSize()).isEqualTo(3);
+        for (String key : List.of("A", "B", "C", "A", "B", "C")) {
+            assertThat(cache.get(key)).hasSize(1);
+        }
+        assertThat(cache.estimatedSize()).isEqualTo(3);
+
+        cache.clear();
+        assertThat(cache.estimatedSize()).isZero();
+        assertThat(cache.offHeapUsedBytes()).isZero();
+    }
+
+    @Test
+    void testInvalidateAndClear() {
+        OrderCache cache = cache(100_000, 0, TIMEOUT);
+        cache.put("Laptop", List.of(order(1L)));
+        cache.put("Mouse", List.of(order(2L)));
+
+        cache.invalidate("Laptop");
+        assertThat(cache.contains("Laptop")).isFalse();
+        assertThat(cache.contains("Mouse")).isTrue();
+
+        cache.clear();
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    void testGetOrLoad_concurrentMissesRunOneLoader() throws Exception {
+        OrderCache cache = cache(100_000, 0, TIMEOUT);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<OrderSnapshot>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.getOrLoad("Laptop", key -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return List.of(order(1L));
+                }).getValue()));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<List<OrderSnapshot>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).hasSize(1);
+            }
+            assertThat(loads).hasValue(1);
+            assertThat(cache.contains("Laptop")).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGetOrLoad_failureReachesWaitersAndIsNotCached() throws Exception {
+        OrderCache cache = cache(100_000, 0, TIMEOUT);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<CacheResult<List<OrderSnapshot>>> leader = pool.submit(() ->
+                    cache.getOrLoad("Laptop", key -> {
+                        started.countDown();
+                        await(release);
+                        throw new IllegalStateException("db down");
+                    }));
+            started.await();
+            Future<CacheResult<List<OrderSnapshot>>> waiter = pool.submit(() ->
+                    cache.getOrLoad("Laptop", key -> {
+                        throw new AssertionError("second loader must not run");
+                    }));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .hasRootCauseMessage("db down");
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                    .hasRootCauseMessage("db down");
+            assertThat(cache.contains("Laptop")).isFalse();
+            assertThat(cache.getOrLoad("Laptop", key -> List.of(order(2L))).getValue()).hasSize(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGetOrLoad_waiterTimesOut() throws Exception {
+        OrderCache cache = cache(100_000, 0, Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> cache.getOrLoad("Laptop", key -> {
+                started.countDown();
+                await(release);
+                return List.of(order(1L));
+            }));
+            started.await();
+
+            assertThatThrownBy(() -> cache.getOrLoad("Laptop", key -> List.of()))
+                    .isInstanceOf(CacheLoadTimeoutException.class);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGetOrLoad_invalidatedDuringLoadIsNotCached() {
+        OrderCache cache = cache(100_000, 0, TIMEOUT);
+
+        List<OrderSnapshot> result = cache.getOrLoad("Laptop", key -> {
+            cache.invalidate("Laptop");
+            return List.of(order(1L));
+        }).getValue();
+
+        assertThat(result).hasSize(1);
+        assertThat(cache.contains("Laptop")).isFalse();
+    }
+
+    @Test
+    void testGetOrLoad_softExpiredServesStaleAndRefreshesInBackground() {
+        List<Runnable> refreshes = new ArrayList<>();
+        OrderCache cache = swrCache(refreshes::add);
+        cache.put("Laptop", List.of(order(1L)));
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        CacheResult<List<OrderSnapshot>> first = cache.getOrLoad("Laptop", key -> List.of(order(2L)));
+        CacheResult<List<OrderSnapshot>> second = cache.getOrLoad("Laptop", key -> List.of(order(3L)));
+
+        assertThat(first.isStale()).isTrue();
+        assertThat(first.getAge()).isEqualTo(Duration.ofMinutes(6));
+        assertThat(first.getValue()).extracting(OrderSnapshot::id).containsExactly(1L);
+        assertThat(second.getValue()).extracting(OrderSnapshot::id).containsExactly(1L);
+        assertThat(refreshes).hasSize(1);
+
+        refreshes.get(0).run();
+        CacheResult<List<OrderSnapshot>> refreshed = cache.getOrLoad("Laptop", key -> List.of());
+        assertThat(refreshed.isStale()).isFalse();
+        assertThat(refreshed.getValue()).extracting(OrderSnapshot::id).containsExactly(2L);
+    }
+
+    @Test
+    void testGetOrLoad_hardExpiredLoadsSynchronously() {
+        OrderCache cache = swrCache(Runnable::run);
+        cache.put("Laptop", List.of(order(1L)));
+        nanos.addAndGet(Duration.ofMinutes(31).toNanos());
+
+        CacheResult<List<OrderSnapshot>> result = cache.getOrLoad("Laptop", key -> List.of(order(2L)));
+
+        assertThat(result.isStale()).isFalse();
+        assertThat(result.getValue()).extracting(OrderSnapshot::id).containsExactly(2L);
+    }
+
+    @Test
+    void testGetOrLoad_failingDatabaseServesLastGoodValueUntilStaleIfErrorEnds() {
+        OrderCache cache = swrCache(Runnable::run);
+        cache.put("Laptop", List.of(order(1L)));
+        nanos.addAndGet(Duration.ofMinutes(31).toNanos());
+        Function<String, List<Order>> failing = key -> {
+            throw new IllegalStateException("db down");
+        };
+
+        CacheResult<List<OrderSnapshot>> result = cache.getOrLoad("Laptop", failing);
+        assertThat(result.isStale()).isTrue();
+        assertThat(result.getValue()).extracting(OrderSnapshot::id).containsExactly(1L);
+
+        nanos.addAndGet(Duration.ofHours(1).toNanos());
+        assertThatThrownBy(() -> cache.getOrLoad("Laptop", failing))
+                .hasMessage("db down");
+    }
+
+    @Test
+    void testGetOrLoad_failedBackgroundRefreshBacksOff() {
+        List<Runnable> refreshes = new ArrayList<>();
+        OrderCache cache = swrCache(refreshes::add);
+        cache.put("Laptop", List.of(order(1L)));
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+        Function<String, List<Order>> failing = key -> {
+            throw new IllegalStateException("db down");
+        };
+
+        cache.getOrLoad("Laptop", failing);
+        refreshes.get(0).run();
+        cache.getOrLoad("Laptop", failing);
+        assertThat(refreshes).hasSize(1);
+
+        nanos.addAndGet(Duration.ofSeconds(11).toNanos());
+        cache.getOrLoad("Laptop", failing);
+        assertThat(refreshes).hasSize(2);
+    }
+
+    private OrderCache cache(long maxBytes, double jitter, Duration loadTimeout) {
+        Duration ttl = Duration.ofMinutes(30);
+        return new OrderCache(maxBytes, ttl, ttl, jitter, loadTimeout, Duration.ZERO,
+                Runnable::run, nanos::get, 0, Long.MAX_VALUE);
+    }
+
+    private OrderCache offHeapCache(long maxBytes, long offHeapCapacity, long threshold) {
+        Duration ttl = Duration.ofMinutes(30);
+        return new OrderCache(maxBytes, ttl, ttl, 0, TIMEOUT, Duration.ZERO, Runnable::run,
+                nanos::get, offHeapCapacity, threshold);
+    }
+
+    private OrderCache swrCache(Executor refreshExecutor) {
+        return new OrderCache(100_000, Duration.ofMinutes(30), Duration.ofMinutes(5), 0, TIMEOUT,
+                Duration.ofHours(1), refreshExecutor, nanos::get, 0, Long.MAX_VALUE);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Order order(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(BigDecimal.TEN);
+
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerName("Alice");
+        order.setProducts(new HashSet<>(Set.of(product)));
+        return order;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCacheWarmerTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private OrderCache orderCache;
+
+    @Mock
+    private OrderService orderService;
+
+    @Test
+    void testSaveHotKeys_writesHottestKeysToFile() throws Exception {
+        Path file = dir.resolve("nested/keys.txt");
+        when(orderCache.hottestKeys(100)).thenReturn(List.of("laptop", "gaming mouse"));
+
+        warmer(file, 100).saveHotKeys();
+
+        assertThat(Files.readAllLines(file)).containsExactly("laptop", "gaming mouse");
+    }
+
+    @Test
+    void testWarmUp_loadsSavedKeysSkippingCachedOnes() throws Exception {
+        Path file = dir.resolve("keys.txt");
+        Files.write(file, List.of("laptop", "mouse", "", "laptop", "keyboard"));
+        when(orderCache.contains(anyString()))
+                .thenAnswer(invocation -> "mouse".equals(invocation.getArgument(0)));
+
+        warmer(file, 100).warmUp();
+
+        verify(orderService).findOrdersByProductName("laptop");
+        verify(orderService).findOrdersByProductName("keyboard");
+        verify(orderService, never()).findOrdersByProductName("mouse");
+    }
+
+    @Test
+    void testWarmUp_respectsMaxKeysAndSurvivesFailures() throws Exception {
+        Path file = dir.resolve("keys.txt");
+        Files.write(file, List.of("laptop", "mouse", "keyboard"));
+        when(orderService.findOrdersByProductName("laptop"))
+                .thenThrow(new IllegalStateException("db down"));
+
+        warmer(file, 2).warmUp();
+
+        verify(orderService).findOrdersByProductName("laptop");
+        verify(orderService).findOrdersByProductName("mouse");
+        verify(orderService, never()).findOrdersByProductName("keyboard");
+    }
+
+    @Test
+    void testWarmUp_missingFileIsNoop() {
+        warmer(dir.resolve("absent.txt"), 100).warmUp();
+
+        verifyNoInteractions(orderService, orderCache);
+    }
+
+    private OrderCacheWarmer warmer(Path file, int maxKeys) {
+        return new OrderCacheWarmer(orderCache, orderService, true, file, maxKeys, 2, 1000,
+                Duration.ofSeconds(5));
+    }
+}
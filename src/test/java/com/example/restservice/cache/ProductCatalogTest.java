@@ -0,0 +1,78 @@
+package com.example.restservice.cache;
+
+import com.example.restservice.model.Product;
+import com.example.restservice.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCatalog productCatalog;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        productCatalog = new ProductCatalog(productRepository, new ObjectMapper());
+
+        product = new Product();
+        product.setId(1L);
+        product.setName("Laptop");
+        product.setPrice(new BigDecimal("999.99"));
+    }
+
+    @Test
+    void testCurrent_buildsOnceUntilInvalidated() {
+        when(productRepository.findAll()).thenReturn(List.of(product));
+
+        ProductCatalogSnapshot first = productCatalog.current();
+        ProductCatalogSnapshot second = productCatalog.current();
+
+        assertThat(second).isSameAs(first);
+        assertThat(new String(first.getJson(), StandardCharsets.UTF_8)).contains("Laptop");
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testInvalidate_rebuildsWithNewEtag() {
+        when(productRepository.findAll()).thenReturn(List.of(product));
+        ProductCatalogSnapshot first = productCatalog.current();
+
+        Product renamed = new Product();
+        renamed.setId(1L);
+        renamed.setName("Monitor");
+        renamed.setPrice(new BigDecimal("199.99"));
+        when(productRepository.findAll()).thenReturn(List.of(renamed));
+        productCatalog.invalidate();
+
+        ProductCatalogSnapshot second = productCatalog.current();
+        assertThat(second.getVersion()).isGreaterThan(first.getVersion());
+        assertThat(second.getEtag()).isNotEqualTo(first.getEtag());
+    }
+
+    @Test
+    void testMatches_ifNoneMatch() {
+        when(productRepository.findAll()).thenReturn(List.of(product));
+        ProductCatalogSnapshot snapshot = productCatalog.current();
+
+        assertThat(snapshot.matches(snapshot.getEtag())).isTrue();
+        assertThat(snapshot.matches("\"other\", " + snapshot.getEtag())).isTrue();
+        assertThat(snapshot.matches("\"other\"")).isFalse();
+        assertThat(snapshot.matches(null)).isFalse();
+    }
+}
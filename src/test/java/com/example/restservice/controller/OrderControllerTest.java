@@ -0,0 +1,134 @@
+package com.example.restservice.controller;
+
+import com.example.restservice.aspect.LoggingAspect;
+import com.example.restservice.exception.CacheLoadTimeoutException;
+import com.example.restservice.exception.GlobalExceptionHandler;
+import com.example.restservice.exception.IngestQueueFullException;
+import com.example.restservice.exception.IngestUnavailableException;
+import com.example.restservice.exception.OrderConflictException;
+import com.example.restservice.ingest.OrderIngestQueue;
+import com.example.restservice.model.Order;
+import com.example.restservice.service.OrderBasketService;
+import com.example.restservice.service.OrderBulkService;
+import com.example.restservice.service.OrderLineService;
+import com.example.restservice.service.OrderService;
+import com.example.restservice.service.OrderStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Контроллер проверяется вместе с LoggingAspect: исключения сервисов должны доходить
+ * до GlobalExceptionHandler своим типом и давать свой HTTP-статус.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderControllerTest {
+
+    private static final String ORDER_JSON = "{\"customerName\":\"Client\","
+            + "\"orderDate\":\"2024-03-01T12:00:00\",\"products\":[{\"id\":1}]}";
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private OrderBasketService orderBasketService;
+
+    @Mock
+    private OrderStatsService orderStatsService;
+
+    @Mock
+    private OrderBulkService orderBulkService;
+
+    @Mock
+    private OrderIngestQueue orderIngestQueue;
+
+    @Mock
+    private OrderLineService orderLineService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new OrderController(orderService,
+                orderBasketService, orderStatsService, orderBulkService, orderIngestQueue,
+                orderLineService));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LoggingAspect());
+        mockMvc = MockMvcBuilders.standaloneSetup(proxyFactory.<OrderController>getProxy())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testAcceptOrder_fullQueueReturns429WithRetryAfter() throws Exception {
+        when(orderIngestQueue.accept(any(Order.class)))
+                .thenThrow(new IngestQueueFullException("Очередь приёма заказов заполнена"));
+
+        mockMvc.perform(post("/orders/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("$.error").value("Очередь приёма заказов заполнена"));
+    }
+
+    @Test
+    void testAcceptOrder_disabledIngestionReturns503() throws Exception {
+        when(orderIngestQueue.accept(any(Order.class)))
+                .thenThrow(new IngestUnavailableException("Асинхронный приём заказов выключен"));
+
+        mockMvc.perform(post("/orders/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER_JSON))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void testAddProduct_exhaustedRetriesReturn409() throws Exception {
+        when(orderLineService.addProduct(1L, 2L))
+                .thenThrow(new OrderConflictException("Заказ 1 одновременно изменяют"));
+
+        mockMvc.perform(put("/orders/1/add-product/2"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Заказ 1 одновременно изменяют"));
+    }
+
+    @Test
+    void testUpdateOrder_staleVersionReturns409() throws Exception {
+        when(orderService.updateOrder(eq(1L), any(Order.class)))
+                .thenThrow(new OptimisticLockingFailureException("Row was updated"));
+
+        mockMvc.perform(put("/orders/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER_JSON))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testOrdersByProductName_cacheLoadTimeoutReturns503() throws Exception {
+        when(orderService.findOrdersByProductName("laptop"))
+                .thenThrow(new CacheLoadTimeoutException("Загрузка заказов для 'laptop' не успела"));
+
+        mockMvc.perform(get("/orders/by-product-name").param("productName", "laptop"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("Загрузка заказов для 'laptop' не успела"));
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.restservice.ingest;
+
+import com.example.restservice.dto.BulkOrderResultDto;
+import com.example.restservice.dto.IngestTicketDto;
+import com.example.restservice.exception.IngestQueueFullException;
+import com.example.restservice.model.IngestStatus;
+import com.example.restservice.model.Order;
+import com.example.restservice.model.Product;
+import com.example.restservice.service.OrderBulkService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIngestQueueTest {
+
+    private static final LocalDateTime ORDER_DATE = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private OrderBulkService orderBulkService;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private OrderIngestQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void testAccept_commitsFullGroupInOneCall() throws Exception {
+        when(orderBulkService.commitGroup(anyList(), anyList())).thenAnswer(inv -> committed(inv.getArgument(0)));
+        queue = queue(10, 3, Duration.ofSeconds(10));
+        queue.start();
+
+        List<UUID> tickets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            IngestTicketDto ticket = queue.accept(order("Client " + i));
+            assertThat(ticket.getStatus()).isEqualTo(IngestStatus.QUEUED);
+            tickets.add(ticket.getTicket());
+        }
+
+        verify(orderBulkService, timeout(5000)).commitGroup(anyList(), eq(tickets));
+        for (int i = 0; i < 3; i++) {
+            IngestTicketDto status = awaitOutcome(tickets.get(i));
+            assertThat(status.getStatus()).isEqualTo(IngestStatus.COMMITTED);
+            assertThat(status.getOrderId()).isEqualTo(100L + i);
+        }
+    }
+
+    @Test
+    void testAccept_rejectsWhenQueueIsFull() {
+        // Первый заказ не фиксируется до проверки: иначе его место в очереди освободится
+        CountDownLatch checked = new CountDownLatch(1);
+        when(orderBulkService.commitGroup(anyList(), anyList())).thenAnswer(inv -> {
+            checked.await(5, TimeUnit.SECONDS);
+            return committed(inv.getArgument(0));
+        });
+        queue = queue(1, 10, Duration.ofMillis(300));
+        queue.start();
+
+        queue.accept(order("First"));
+
+        assertThatThrownBy(() -> queue.accept(order("Second")))
+                .isInstanceOf(IngestQueueFullException.class);
+        checked.countDown();
+    }
+
+    @Test
+    void testCommit_retriesGroupWhileDatabaseIsDown() throws Exception {
+        when(orderBulkService.commitGroup(anyList(), anyList()))
+                .thenThrow(new CannotGetJdbcConnectionException("down"))
+                .thenAnswer(inv -> committed(inv.getArgument(0)));
+        queue = queue(10, 1, Duration.ZERO);
+        queue.start();
+
+        UUID ticket = queue.accept(order("Client")).getTicket();
+
+        assertThat(awaitOutcome(ticket).getStatus()).isEqualTo(IngestStatus.COMMITTED);
+        verify(orderBulkService, times(2)).commitGroup(anyList(), eq(List.of(ticket)));
+    }
+
+    @Test
+    void testCommit_reconcilesTicketsWhenCommitSucceededButReplyWasLost() throws Exception {
+        List<UUID> persisted = new ArrayList<>();
+        when(orderBulkService.commitGroup(anyList(), anyList())).thenAnswer(inv -> {
+            // Транзакция зафиксирована, но соединение оборвалось до ответа
+            persisted.addAll(inv.getArgument(1));
+            throw new CannotGetJdbcConnectionException("connection reset during COMMIT");
+        });
+        doAnswer(inv -> {
+            for (int i = 0; i < persisted.size(); i++) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getObject(1, UUID.class)).thenReturn(persisted.get(i));
+                when(rs.getLong(2)).thenReturn(200L + i);
+                inv.<RowCallbackHandler>getArgument(2).processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+        queue = queue(10, 2, Duration.ofSeconds(10));
+        queue.start();
+
+        UUID first = queue.accept(order("First")).getTicket();
+        UUID second = queue.accept(order("Second")).getTicket();
+
+        assertThat(awaitOutcome(first).getStatus()).isEqualTo(IngestStatus.COMMITTED);
+        assertThat(awaitOutcome(second).getOrderId()).isEqualTo(201L);
+        verify(orderBulkService, times(1)).commitGroup(anyList(), anyList());
+    }
+
+    @Test
+    void testStart_replaysUncommittedJournalRecordsOnce() throws Exception {
+        IngestRecord pending = IngestRecord.queued(UUID.randomUUID(), order("Pending"), Instant.now());
+        IngestRecord done = IngestRecord.queued(UUID.randomUUID(), order("Done"), Instant.now());
+        // Записан в БД, но упал до отметки в журнале
+        IngestRecord written = IngestRecord.queued(UUID.randomUUID(), order("Written"), Instant.now());
+        OrderIngestJournal journal = new OrderIngestJournal(dir.resolve("ingest.journal"), objectMapper);
+        journal.rewrite(() -> List.of(pending, done, written, done.committed(7L, Instant.now())));
+        journal.close();
+        doAnswer(inv -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getObject(1, UUID.class)).thenReturn(written.ticket());
+            when(rs.getLong(2)).thenReturn(42L);
+            inv.<RowCallbackHandler>getArgument(2).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+        when(orderBulkService.commitGroup(anyList(), anyList())).thenAnswer(inv -> committed(inv.getArgument(0)));
+        queue = queue(10, 10, Duration.ofMillis(50));
+        queue.start();
+
+        assertThat(awaitOutcome(pending.ticket()).getOrderId()).isEqualTo(100L);
+        assertThat(awaitOutcome(written.ticket()).getOrderId()).isEqualTo(42L);
+        assertThat(queue.getTicket(done.ticket())).get()
+                .extracting(IngestTicketDto::getOrderId).isEqualTo(7L);
+        ArgumentCaptor<List<Order>> orders = ArgumentCaptor.forClass(List.class);
+        verify(orderBulkService).commitGroup(orders.capture(), eq(List.of(pending.ticket())));
+        assertThat(orders.getValue()).singleElement()
+                .satisfies(o -> assertThat(o.getCustomerName()).isEqualTo("Pending"));
+    }
+
+    private OrderIngestQueue queue(int capacity, int batchSize, Duration maxWait) {
+        return new OrderIngestQueue(orderBulkService, jdbcTemplate, objectMapper, true, capacity,
+                batchSize, maxWait, Duration.ofMillis(10), Duration.ofHours(1),
+                dir.resolve("ingest.journal"), DataSize.ofMegabytes(1));
+    }
+
+    private IngestTicketDto awaitOutcome(UUID ticket) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            IngestTicketDto status = queue.getTicket(ticket).orElseThrow();
+            if (status.getStatus() != IngestStatus.QUEUED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Заказ по билету " + ticket + " не зафиксирован");
+    }
+
+    private static List<BulkOrderResultDto> committed(List<Order> orders) {
+        List<BulkOrderResultDto> results = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            BulkOrderResultDto result = new BulkOrderResultDto(i);
+            result.setId(100L + i);
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static Order order(String customer) {
+        Product product = new Product();
+        product.setId(1L);
+        Order order = new Order(customer, Set.of(product));
+        order.setOrderDate(ORDER_DATE);
+        return order;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.restservice.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderProductIndexTest {
+
+    private OrderProductIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new OrderProductIndex();
+        index.setProducts(1L, List.of(10L, 20L, 30L));
+        index.setProducts(2L, List.of(10L, 20L));
+        index.setProducts(3L, List.of(10L, 30L));
+        index.setProducts(4L, List.of(40L));
+    }
+
+    @Test
+    void testMatch_allAnyAndNone() {
+        assertThat(ids(index.match(List.of(10L, 20L), List.of(), List.of())))
+                .containsExactly(1L, 2L);
+        assertThat(ids(index.match(List.of(), List.of(30L, 40L), List.of())))
+                .containsExactly(1L, 3L, 4L);
+        assertThat(ids(index.match(List.of(10L), List.of(), List.of(20L))))
+                .containsExactly(3L);
+        assertThat(ids(index.match(List.of(10L), List.of(20L, 40L), List.of(30L))))
+                .containsExactly(2L);
+        assertThat(ids(index.match(List.of(10L, 99L), List.of(), List.of()))).isEmpty();
+    }
+
+    @Test
+    void testMatch_doesNotMutateIndex() {
+        index.match(List.of(10L), List.of(), List.of(20L, 30L));
+
+        assertThat(ids(index.match(List.of(10L), List.of(), List.of())))
+                .containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void testSetProducts_replacesAndRemovesOrder() {
+        index.setProducts(1L, List.of(40L));
+        index.setProducts(2L, List.of());
+
+        assertThat(ids(index.match(List.of(10L), List.of(), List.of()))).containsExactly(3L);
+        assertThat(ids(index.match(List.of(40L), List.of(), List.of())))
+                .containsExactly(1L, 4L);
+        assertThat(index.orderCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testPage_continuesAfterId() {
+        Roaring64NavigableMap matched = index.match(List.of(), List.of(10L, 40L), List.of());
+
+        assertThat(OrderProductIndex.page(matched, 0, 2)).containsExactly(1L, 2L);
+        assertThat(OrderProductIndex.page(matched, 2, 2)).containsExactly(3L, 4L);
+        assertThat(OrderProductIndex.page(matched, 4, 2)).isEmpty();
+    }
+
+    @Test
+    void testMatch_requiresAllOrAny() {
+        assertThatThrownBy(() -> index.match(List.of(), List.of(), List.of(10L)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Long> ids(Roaring64NavigableMap bitmap) {
+        return OrderProductIndex.page(bitmap, 0, Integer.MAX_VALUE);
+    }
+}
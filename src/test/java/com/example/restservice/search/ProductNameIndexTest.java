@@ -0,0 +1,58 @@
+package com.example.restservice.search;
+
+import com.example.restservice.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ProductNameIndexTest {
+
+    private ProductNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductNameIndex();
+        index.upsert(product(1L, "Laptop Pro"));
+        index.upsert(product(2L, "Gaming Laptop"));
+        index.upsert(product(3L, "Lamp"));
+        index.upsert(product(4L, "Mouse"));
+    }
+
+    @Test
+    void testSuggest_prefixMatchesFirstThenInfix() {
+        List<Product> result = index.suggest("lap", 10);
+        assertThat(result).extracting(Product::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void testSuggest_respectsLimit() {
+        assertThat(index.suggest("la", 1)).extracting(Product::getId).containsExactly(3L);
+    }
+
+    @Test
+    void testUpsert_renameReplacesOldName() {
+        index.upsert(product(4L, "Laptop Stand"));
+
+        assertThat(index.suggest("mou", 10)).isEmpty();
+        assertThat(index.suggest("laptop s", 10)).extracting(Product::getId).containsExactly(4L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void testRemove() {
+        index.remove(1L);
+        assertThat(index.suggest("laptop", 10)).extracting(Product::getId).containsExactly(2L);
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(BigDecimal.TEN);
+        return product;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.restservice.service;
+
+import com.example.restservice.dto.OrderBasketPageDto;
+import com.example.restservice.dto.OrderProductLinkDto;
+import com.example.restservice.event.ChangeType;
+import com.example.restservice.event.OrderChangedEvent;
+import com.example.restservice.exception.InvalidPageRequestException;
+import com.example.restservice.model.Order;
+import com.example.restservice.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBasketServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private OrderBasketService orderBasketService;
+
+    @Test
+    void testFindOrders_fromIndexWithTotalAndNextAfterId() {
+        buildIndex();
+        when(orderRepository.findByIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(order(2L), order(1L)));
+
+        OrderBasketPageDto page = orderBasketService.findOrders(List.of(10L), List.of(),
+                List.of(), 0, 2);
+
+        assertThat(page.getItems()).extracting(Order::getId).containsExactly(1L, 2L);
+        assertThat(page.getTotal()).isEqualTo(3);
+        assertThat(page.getNextAfterId()).isEqualTo(2L);
+        verify(orderRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testOnOrderChanged_refreshesOrderFromDatabase() {
+        buildIndex();
+        when(orderRepository.findProductLinksByOrderIds(List.of(3L)))
+                .thenReturn(List.of(new OrderProductLinkDto(3L, 20L)));
+        when(orderRepository.findByIdIn(anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(OrderBasketServiceTest::order).toList());
+
+        orderBasketService.onOrderChanged(new OrderChangedEvent(ChangeType.UPDATED, 3L, Set.of()));
+
+        OrderBasketPageDto page = orderBasketService.findOrders(List.of(10L), List.of(),
+                List.of(), 0, 10);
+        assertThat(page.getItems()).extracting(Order::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindOrders_fallsBackToDatabaseBeforeIndexIsReady() {
+        when(orderRepository.count(any(Specification.class))).thenReturn(1L);
+        when(orderRepository.findBy(any(Specification.class), any())).thenReturn(List.of(order(5L)));
+        when(orderRepository.findByIdIn(List.of(5L))).thenReturn(List.of(order(5L)));
+
+        OrderBasketPageDto page = orderBasketService.findOrders(List.of(), List.of(10L, 20L),
+                List.of(30L), 0, 10);
+
+        assertThat(page.getItems()).extracting(Order::getId).containsExactly(5L);
+        assertThat(page.getTotal()).isEqualTo(1);
+        assertThat(page.getNextAfterId()).isNull();
+    }
+
+    @Test
+    void testFindOrders_requiresAllOrAny() {
+        assertThatThrownBy(() -> orderBasketService.findOrders(List.of(), List.of(),
+                List.of(1L), 0, 10))
+                .isInstanceOf(InvalidPageRequestException.class);
+    }
+
+    private void buildIndex() {
+        when(orderRepository.findIdsAfter(0L, Limit.of(5000))).thenReturn(List.of(1L, 2L, 3L));
+        when(orderRepository.findProductLinks(0L, 3L)).thenReturn(List.of(
+                new OrderProductLinkDto(1L, 10L), new OrderProductLinkDto(1L, 20L),
+                new OrderProductLinkDto(2L, 10L), new OrderProductLinkDto(3L, 10L)));
+        orderBasketService.rebuildIndex();
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerName("Alice");
+        return order;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.restservice.service;
+
+import com.example.restservice.dto.BulkOrderReportDto;
+import com.example.restservice.event.OrderChangedEvent;
+import com.example.restservice.model.Order;
+import com.example.restservice.model.Product;
+import com.example.restservice.repository.ProductRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBulkServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OrderStatsService orderStatsService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private OrderBulkService orderBulkService;
+
+    @BeforeEach
+    void setUp() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        orderBulkService = new OrderBulkService(productRepository, jdbcTemplate,
+                transactionManager, validator, orderStatsService, eventPublisher, 2);
+    }
+
+    @Test
+    void testCreateOrders_resolvesProductsOnceAndReportsEachOrder() {
+        when(productRepository.findAllById(Set.of(1L, 2L, 9L)))
+                .thenReturn(List.of(product(1L, "Laptop", "1000.00"),
+                        product(2L, "Mouse", "20.00")));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyInt()))
+                .thenReturn(List.of(100L, 101L), List.of(102L));
+
+        BulkOrderReportDto report = orderBulkService.createOrders(List.of(
+                order("Alice", 1L, 2L), order("", 1L), order("Bob", 9L),
+                order("Carol", 2L), order("Dave", 1L)));
+
+        assertThat(report.getCreated()).isEqualTo(3);
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getResults().get(0).getId()).isEqualTo(100L);
+        assertThat(report.getResults().get(0).getTotalAmount()).isEqualByComparingTo("1020.00");
+        assertThat(report.getResults().get(1).getErrors()).containsKey("customerName");
+        assertThat(report.getResults().get(2).getErrors())
+                .containsEntry("products", "Товары не найдены: [9]");
+        assertThat(report.getResults().get(4).getId()).isEqualTo(102L);
+        verify(productRepository, times(1)).findAllById(any());
+
+        // Две порции: по пакету заказов и связей на каждую, одно событие на порцию
+        verify(jdbcTemplate, times(4)).batchUpdate(anyString(), anyList());
+        ArgumentCaptor<OrderChangedEvent> events = ArgumentCaptor.forClass(OrderChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues().get(0).getOrderIds()).containsExactly(100L, 101L);
+        assertThat(events.getAllValues().get(0).getProductNameKeys())
+                .containsExactlyInAnyOrder("laptop", "mouse");
+        verify(orderStatsService, times(2)).recordOrdersCreated(anyList());
+    }
+
+    @Test
+    void testCreateOrders_failedChunkReportsErrorsAndKeepsOthers() {
+        when(productRepository.findAllById(Set.of(1L)))
+                .thenReturn(List.of(product(1L, "Laptop", "1000.00")));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyInt()))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenReturn(List.of(102L));
+
+        BulkOrderReportDto report = orderBulkService.createOrders(List.of(
+                order("Alice", 1L), order("Bob", 1L), order("Carol", 1L)));
+
+        assertThat(report.getCreated()).isEqualTo(1);
+        assertThat(report.getResults().get(0).getId()).isNull();
+        assertThat(report.getResults().get(0).getErrors().get("error")).contains("db down");
+        assertThat(report.getResults().get(2).getId()).isEqualTo(102L);
+    }
+
+    private static Order order(String customer, Long... productIds) {
+        Order order = new Order();
+        order.setCustomerName(customer);
+        order.setProducts(new HashSet<>(Arrays.stream(productIds)
+                .map(id -> product(id, null, null)).toList()));
+        return order;
+    }
+
+    private static Product product(Long id, String name, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price != null ? new BigDecimal(price) : null);
+        return product;
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.restservice.service;
+
+import com.example.restservice.analytics.OrderContribution;
+import com.example.restservice.dto.OrderLineOpDto;
+import com.example.restservice.event.OrderChangedEvent;
+import com.example.restservice.exception.InvalidOrderException;
+import com.example.restservice.exception.OrderConflictException;
+import com.example.restservice.model.Order;
+import com.example.restservice.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderLineServiceTest {
+
+    private static final LocalDateTime ORDER_DATE = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderStatsService orderStatsService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private OrderLineService orderLineService;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        orderLineService = new OrderLineService(jdbcTemplate, transactionManager,
+                orderRepository, orderStatsService, eventPublisher, 3);
+        order = new Order();
+        order.setId(1L);
+    }
+
+    @Test
+    void testAddProduct_insertsLineAndShiftsTotalByPrice() throws Exception {
+        stubProducts(product(2L, "20.00", "mouse"));
+        stubOrder();
+        when(jdbcTemplate.queryForList(eq(OrderLineService.INSERT_LINES), any(SqlParameterSource.class),
+                eq(Long.class))).thenReturn(List.of(2L));
+        when(jdbcTemplate.queryForObject(eq(OrderLineService.SHIFT_TOTAL), delta("20.00"),
+                eq(BigDecimal.class))).thenReturn(new BigDecimal("1020.00"));
+        when(jdbcTemplate.queryForList(eq(OrderLineService.ORDER_NAME_KEYS), any(SqlParameterSource.class),
+                eq(String.class))).thenReturn(List.of("laptop", "mouse"));
+        when(orderRepository.findByIdIn(List.of(1L))).thenReturn(List.of(order));
+
+        Optional<Order> result = orderLineService.addProduct(1L, 2L);
+
+        assertThat(result).contains(order);
+        LocalDate day = ORDER_DATE.toLocalDate();
+        verify(orderStatsService).recordOrderChange(
+                new OrderContribution(day, new BigDecimal("1000.00"), Map.of()),
+                new OrderContribution(day, new BigDecimal("1020.00"),
+                        Map.of(2L, new BigDecimal("20.00"))));
+        ArgumentCaptor<OrderChangedEvent> event = ArgumentCaptor.forClass(OrderChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getOrderIds()).containsExactly(1L);
+        assertThat(event.getValue().getProductNameKeys()).containsExactlyInAnyOrder("laptop", "mouse");
+    }
+
+    @Test
+    void testAddProduct_existingLineChangesNothing() throws Exception {
+        stubProducts(product(2L, "20.00", "mouse"));
+        stubOrder();
+        when(jdbcTemplate.queryForList(eq(OrderLineService.INSERT_LINES), any(SqlParameterSource.class),
+                eq(Long.class))).thenReturn(List.of());
+        when(orderRepository.findByIdIn(List.of(1L))).thenReturn(List.of(order));
+
+        assertThat(orderLineService.addProduct(1L, 2L)).contains(order);
+
+        verify(jdbcTemplate, never()).queryForObject(eq(OrderLineService.SHIFT_TOTAL),
+                any(SqlParameterSource.class), eq(BigDecimal.class));
+        verifyNoInteractions(orderStatsService, eventPublisher);
+    }
+
+    @Test
+    void testAddProduct_missingProductReturnsEmpty() throws Exception {
+        stubProducts();
+        stubOrder();
+
+        assertThat(orderLineService.addProduct(1L, 2L)).isEmpty();
+
+        verify(jdbcTemplate, never()).queryForList(anyString(), any(SqlParameterSource.class),
+                eq(Long.class));
+        verifyNoInteractions(orderRepository, orderStatsService, eventPublisher);
+    }
+
+    @Test
+    void testApplyLines_netsOperationsIntoOneShiftAndOneEvent() throws Exception {
+        stubProducts(product(2L, "20.00", "mouse"), product(3L, "5.00", "cable"),
+                product(4L, "100.00", "monitor"));
+        stubOrder();
+        when(jdbcTemplate.queryForList(eq(OrderLineService.INSERT_LINES), productIds(List.of(2L, 4L)),
+                eq(Long.class))).thenReturn(List.of(2L, 4L));
+        when(jdbcTemplate.queryForList(eq(OrderLineService.DELETE_LINES), productIds(List.of(3L)),
+                eq(Long.class))).thenReturn(List.of(3L));
+        when(jdbcTemplate.queryForObject(eq(OrderLineService.SHIFT_TOTAL), delta("115.00"),
+                eq(BigDecimal.class))).thenReturn(new BigDecimal("1115.00"));
+        when(jdbcTemplate.queryForList(eq(OrderLineService.ORDER_NAME_KEYS), any(SqlParameterSource.class),
+                eq(String.class))).thenReturn(List.of("laptop", "mouse", "monitor"));
+        when(orderRepository.findByIdIn(List.of(1L))).thenReturn(List.of(order));
+
+        // Товар 2 сначала убран, затем добавлен: остаётся последняя операция
+        Optional<Order> result = orderLineService.applyLines(1L, List.of(
+                new OrderLineOpDto(OrderLineOpDto.REMOVE, 2L),
+                new OrderLineOpDto(OrderLineOpDto.ADD, 4L),
+                new OrderLineOpDto(OrderLineOpDto.REMOVE, 3L),
+                new OrderLineOpDto(OrderLineOpDto.ADD, 2L)));
+
+        assertThat(result).contains(order);
+        LocalDate day = ORDER_DATE.toLocalDate();
+        verify(orderStatsService).recordOrderChange(
+                new OrderContribution(day, new BigDecimal("1000.00"),
+                        Map.of(3L, new BigDecimal("5.00"))),
+                new OrderContribution(day, new BigDecimal("1115.00"),
+                        Map.of(2L, new BigDecimal("20.00"), 4L, new BigDecimal("100.00"))));
+        verify(jdbcTemplate).queryForObject(eq(OrderLineService.SHIFT_TOTAL),
+                any(SqlParameterSource.class), eq(BigDecimal.class));
+        ArgumentCaptor<OrderChangedEvent> event = ArgumentCaptor.forClass(OrderChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getProductNameKeys())
+                .containsExactlyInAnyOrder("laptop", "mouse", "monitor", "cable");
+    }
+
+    @Test
+    void testApplyLines_missingProductRejectsWholeEdit() throws Exception {
+        stubProducts(product(2L, "20.00", "mouse"));
+        stubOrder();
+
+        assertThatThrownBy(() -> orderLineService.applyLines(1L, List.of(
+                new OrderLineOpDto(OrderLineOpDto.ADD, 2L),
+                new OrderLineOpDto(OrderLineOpDto.ADD, 9L))))
+                .isInstanceOf(InvalidOrderException.class)
+                .hasMessageContaining("9");
+
+        verify(jdbcTemplate, never()).queryForList(anyString(), any(SqlParameterSource.class),
+                eq(Long.class));
+        verifyNoInteractions(orderRepository, orderStatsService, eventPublisher);
+    }
+
+    @Test
+    void testRemoveProduct_retriesLockFailuresAndThenReportsConflict() {
+        doThrow(new CannotAcquireLockException("deadlock detected")).when(jdbcTemplate)
+                .query(eq(OrderLineService.LOCK_PRODUCTS), any(SqlParameterSource.class),
+                        any(RowCallbackHandler.class));
+
+        assertThatThrownBy(() -> orderLineService.removeProduct(1L, 2L))
+                .isInstanceOf(OrderConflictException.class);
+
+        verify(jdbcTemplate, times(3)).query(eq(OrderLineService.LOCK_PRODUCTS),
+                any(SqlParameterSource.class), any(RowCallbackHandler.class));
+        verifyNoInteractions(orderRepository, orderStatsService, eventPublisher);
+    }
+
+    private void stubProducts(ResultSet... rows) {
+        doAnswer(inv -> {
+            for (ResultSet rs : rows) {
+                inv.<RowCallbackHandler>getArgument(2).processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(OrderLineService.LOCK_PRODUCTS), any(SqlParameterSource.class),
+                any(RowCallbackHandler.class));
+    }
+
+    private void stubOrder() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1, LocalDateTime.class)).thenReturn(ORDER_DATE);
+        when(jdbcTemplate.query(eq(OrderLineService.LOCK_ORDER), any(SqlParameterSource.class),
+                any(RowMapper.class))).thenAnswer(mapRow(rs));
+    }
+
+    private static ResultSet product(long id, String price, String nameKey) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getBigDecimal("price")).thenReturn(new BigDecimal(price));
+        when(rs.getString("name_key")).thenReturn(nameKey);
+        return rs;
+    }
+
+    private static SqlParameterSource delta(String delta) {
+        return argThat(params -> new BigDecimal(delta).equals(params.getValue("delta")));
+    }
+
+    private static SqlParameterSource productIds(List<Long> productIds) {
+        return argThat(params -> params.hasValue("productIds")
+                && productIds.equals(params.getValue("productIds")));
+    }
+
+    private static Answer<List<?>> mapRow(ResultSet rs) {
+        return inv -> List.of(inv.<RowMapper<?>>getArgument(2).mapRow(rs, 0));
+    }
+}
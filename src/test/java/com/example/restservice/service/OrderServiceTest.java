@@ -1,7 +1,18 @@
 package com.example.restservice.service;
 
+import com.example.restservice.analytics.OrderContribution;
+import com.example.restservice.cache.CacheResult;
+import com.example.restservice.cache.ClusterCacheBus;
 import com.example.restservice.cache.OrderCache;
+import com.example.restservice.cache.OrderSnapshot;
+import com.example.restservice.dto.CursorPageDto;
+import com.example.restservice.dto.OrderPageQuery;
+import com.example.restservice.dto.OrderSummaryDto;
+import com.example.restservice.dto.PageCursor;
+import com.example.restservice.event.ChangeType;
+import com.example.restservice.event.OrderChangedEvent;
 import com.example.restservice.exception.InvalidOrderException;
+import com.example.restservice.exception.InvalidPageRequestException;
 import com.example.restservice.model.Order;
 import com.example.restservice.model.Product;
 import com.example.restservice.repository.OrderRepository;
@@ -11,11 +22,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +50,15 @@ class OrderServiceTest {
     @Mock
     private OrderCache orderCache;
 
+    @Mock
+    private ClusterCacheBus clusterCacheBus;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OrderStatsService orderStatsService;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -52,30 +81,53 @@ class OrderServiceTest {
 
     @Test
     void testFindOrdersByProductName_fromCache() {
-        when(orderCache.contains("Laptop")).thenReturn(true);
-        when(orderCache.get("Laptop")).thenReturn(List.of(order));
+        when(orderCache.getOrLoad(eq("laptop"), any()))
+                .thenReturn(CacheResult.fresh(List.of(OrderSnapshot.of(order, p -> p)),
+                        Duration.ZERO));
 
-        List<Order> result = orderService.findOrdersByProductName("Laptop");
+        CacheResult<List<OrderSnapshot>> result = orderService.findOrdersByProductName("Laptop");
 
-        assertThat(result).hasSize(1);
-        verify(orderCache, never()).put(any(), any());
+        assertThat(result.getValue()).hasSize(1);
+        verify(orderRepository, never()).findOrdersByProductNameKey(any());
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void testFindOrdersByProductName_fromDatabase() {
-        when(orderCache.contains("Laptop")).thenReturn(false);
-        when(orderRepository.findOrdersByProductName("Laptop")).thenReturn(List.of(order));
+        when(orderCache.getOrLoad(eq("laptop"), any())).thenAnswer(invocation -> {
+            List<Order> loaded = (List<Order>) invocation.getArgument(1, Function.class)
+                    .apply("laptop");
+            return CacheResult.fresh(loaded.stream().map(o -> OrderSnapshot.of(o, p -> p))
+                    .toList(), Duration.ZERO);
+        });
+        when(orderRepository.findOrdersByProductNameKey("laptop")).thenReturn(List.of(order));
+
+        CacheResult<List<OrderSnapshot>> result = orderService.findOrdersByProductName("Laptop");
+
+        assertThat(result.getValue()).extracting(OrderSnapshot::customerName)
+                .containsExactly("Alice");
+        verify(orderRepository).findOrdersByProductNameKey("laptop");
+    }
+
+    @Test
+    void testFindOrdersByProductNamePage_usesNormalizedKeyAndKeepsIdOrder() {
+        Order second = new Order();
+        second.setId(5L);
+        when(orderRepository.findOrderIdsByProductNameKey("gaming laptop", 0L, Limit.of(2)))
+                .thenReturn(List.of(1L, 5L));
+        when(orderRepository.findByIdIn(List.of(1L, 5L))).thenReturn(List.of(second, order));
 
-        List<Order> result = orderService.findOrdersByProductName("Laptop");
+        List<Order> result = orderService.findOrdersByProductName("  Gaming   LAPTOP ", 0L, 2);
 
-        assertThat(result).hasSize(1);
-        verify(orderCache).put("Laptop", List.of(order));
+        assertThat(result).extracting(Order::getId).containsExactly(1L, 5L);
+        verifyNoInteractions(orderCache);
     }
 
     @Test
     void testClearOrdersCache() {
         String result = orderService.clearOrdersCache();
         verify(orderCache).clear();
+        verify(clusterCacheBus).publishClearOrders();
         assertThat(result).contains("Очистка кэша");
     }
 
@@ -105,7 +157,8 @@ class OrderServiceTest {
 
         Order result = orderService.createOrder(order);
         assertThat(result.getCustomerName()).isEqualTo("Alice");
-        verify(orderCache).invalidate("Laptop");
+        assertPublished(ChangeType.CREATED, "laptop");
+        verify(orderCache, never()).invalidate(any());
     }
 
     @Test
@@ -115,6 +168,7 @@ class OrderServiceTest {
         assertThatThrownBy(() -> orderService.createOrder(order))
                 .isInstanceOf(InvalidOrderException.class)
                 .hasMessageContaining("не найдены");
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -122,56 +176,103 @@ class OrderServiceTest {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
         when(orderRepository.save(any())).thenReturn(order);
 
+        Product mouse = new Product();
+        mouse.setId(2L);
+        mouse.setName("Mouse");
+        mouse.setPrice(BigDecimal.TEN);
+        when(productRepository.findAllById(Set.of(2L))).thenReturn(List.of(mouse));
+
         Order updated = new Order();
         updated.setCustomerName("Bob");
-        updated.setProducts(new HashSet<>(List.of(product)));
+        updated.setProducts(new HashSet<>(List.of(mouse)));
 
         Optional<Order> result = orderService.updateOrder(1L, updated);
         assertThat(result).isPresent();
         assertThat(result.get().getCustomerName()).isEqualTo("Bob");
+        assertPublished(ChangeType.UPDATED, "laptop", "mouse");
+        LocalDate day = order.getOrderDate().toLocalDate();
+        verify(orderStatsService).recordOrderChange(
+                new OrderContribution(day, new BigDecimal("1000.00"),
+                        Map.of(1L, new BigDecimal("1000.00"))),
+                new OrderContribution(day, BigDecimal.TEN, Map.of(2L, BigDecimal.TEN)));
     }
 
     @Test
     void testDeleteOrder_exists() {
-        when(orderRepository.existsById(1L)).thenReturn(true);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
         boolean result = orderService.deleteOrder(1L);
         assertThat(result).isTrue();
-        verify(orderRepository).deleteById(1L);
+        verify(orderRepository).delete(order);
+        assertPublished(ChangeType.DELETED, "laptop");
+        verify(orderStatsService).recordOrderChange(OrderContribution.of(order), null);
     }
 
     @Test
     void testDeleteOrder_notFound() {
-        when(orderRepository.existsById(2L)).thenReturn(false);
+        when(orderRepository.findById(2L)).thenReturn(Optional.empty());
         boolean result = orderService.deleteOrder(2L);
         assertThat(result).isFalse();
+        verifyNoInteractions(eventPublisher, orderStatsService);
     }
 
     @Test
-    void testAddProductToOrder_valid() {
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any())).thenReturn(order);
+    void testGetOrdersPage_loadsProductsInOneQueryAndReturnsCursor() {
+        Order second = new Order();
+        second.setId(2L);
+        second.setOrderDate(LocalDateTime.of(2024, 1, 2, 10, 0));
+        order.setOrderDate(LocalDateTime.of(2024, 1, 1, 10, 0));
+        when(orderRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(order, second));
+        when(orderRepository.findByIdIn(List.of(1L))).thenReturn(List.of(order));
+
+        OrderPageQuery query = new OrderPageQuery();
+        query.setSize(1);
+        query.setSort("orderDate");
+        CursorPageDto<Order> page = orderService.getOrdersPage(query);
+
+        assertThat(page.getItems()).containsExactly(order);
+        PageCursor cursor = PageCursor.decode(page.getNextCursor(), "orderDate", false);
+        assertThat(cursor.getLastId()).isEqualTo(1L);
+        assertThat(cursor.getLastValue()).isEqualTo("2024-01-01T10:00");
+        verify(orderRepository, times(1)).findByIdIn(any());
+    }
 
-        Optional<Order> result = orderService.addProductToOrder(1L, 1L);
-        assertThat(result).isPresent();
-        verify(orderCache).invalidate("Laptop");
+    @Test
+    void testGetOrdersPage_empty() {
+        when(orderRepository.findBy(any(Specification.class), any())).thenReturn(List.of());
+
+        CursorPageDto<Order> page = orderService.getOrdersPage(new OrderPageQuery());
+
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+        verify(orderRepository, never()).findByIdIn(any());
     }
 
     @Test
-    void testAddProductToOrder_productNotFound() {
-        when(productRepository.findById(1L)).thenReturn(Optional.empty());
-        Optional<Order> result = orderService.addProductToOrder(1L, 1L);
-        assertThat(result).isEmpty();
+    void testGetOrdersPage_malformedDateCursor_shouldThrow() {
+        OrderPageQuery query = new OrderPageQuery();
+        query.setSort("orderDate");
+        query.setCursor(new PageCursor("orderDate", false, 1L, "yesterday").encode());
+
+        assertThatThrownBy(() -> orderService.getOrdersPage(query))
+                .isInstanceOf(InvalidPageRequestException.class);
     }
 
     @Test
-    void testRemoveProductFromOrder_valid() {
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any())).thenReturn(order);
+    void testGetOrderSummaries_delegatesWithLimit() {
+        OrderSummaryDto summary = new OrderSummaryDto(1L, "Alice", null, new BigDecimal("1000.00"), 1);
+        when(orderRepository.findSummaries(0L, Limit.of(50))).thenReturn(List.of(summary));
 
-        Optional<Order> result = orderService.removeProductFromOrder(1L, 1L);
-        assertThat(result).isPresent();
-        verify(orderCache).invalidate("Laptop");
+        List<OrderSummaryDto> result = orderService.getOrderSummaries(0L, 50);
+
+        assertThat(result).containsExactly(summary);
+        verifyNoInteractions(productRepository);
     }
-}
 
+    private void assertPublished(ChangeType type, String... productNameKeys) {
+        ArgumentCaptor<OrderChangedEvent> captor = ArgumentCaptor.forClass(OrderChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getType()).isEqualTo(type);
+        assertThat(captor.getValue().getProductNameKeys()).containsExactlyInAnyOrder(productNameKeys);
+    }
+}
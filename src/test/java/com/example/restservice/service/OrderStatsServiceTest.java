@@ -0,0 +1,111 @@
+package com.example.restservice.service;
+
+import com.example.restservice.analytics.OrderContribution;
+import com.example.restservice.event.OrderStatsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.SqlArrayValue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatsServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private OrderStatsService orderStatsService;
+
+    @BeforeEach
+    void setUp() {
+        orderStatsService = new OrderStatsService(jdbcTemplate, eventPublisher);
+    }
+
+    @Test
+    void testRecordOrderChange_writesOnlyNetDifference() {
+        OrderContribution before = new OrderContribution(DAY, new BigDecimal("30.00"),
+                Map.of(1L, new BigDecimal("10.00"), 2L, new BigDecimal("20.00")));
+        OrderContribution after = new OrderContribution(DAY, new BigDecimal("15.00"),
+                Map.of(1L, new BigDecimal("10.00"), 3L, new BigDecimal("5.00")));
+
+        orderStatsService.recordOrderChange(before, after);
+
+        ArgumentCaptor<SqlParameterSource[]> days = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        ArgumentCaptor<SqlParameterSource[]> products =
+                ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO order_stats_daily "),
+                days.capture());
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO order_stats_product_daily "),
+                products.capture());
+        assertThat(days.getValue()).singleElement().satisfies(row -> {
+            assertThat(row.getValue("orderCount")).isEqualTo(0L);
+            assertThat(row.getValue("revenue")).isEqualTo(new BigDecimal("-15.00"));
+        });
+        // Товар 1 не изменился, товары идут по возрастанию id
+        assertThat(Arrays.stream(products.getValue()).map(row -> row.getValue("productId")))
+                .containsExactly(2L, 3L);
+        assertThat(products.getValue()[0].getValue("orderCount")).isEqualTo(-1L);
+
+        ArgumentCaptor<OrderStatsChangedEvent> event =
+                ArgumentCaptor.forClass(OrderStatsChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getDays()).containsExactly(DAY);
+        assertThat(event.getValue().getProductIds()).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void testRecordOrderChange_noDifference_writesNothing() {
+        OrderContribution same = new OrderContribution(DAY, BigDecimal.TEN, Map.of(1L,
+                BigDecimal.TEN));
+
+        orderStatsService.recordOrderChange(same, same);
+
+        verifyNoInteractions(jdbcTemplate, eventPublisher);
+    }
+
+    @Test
+    void testRecordReprice_locksDaysAndShiftsRevenue() {
+        when(jdbcTemplate.query(startsWith("SELECT d.day"), any(SqlParameterSource.class),
+                any(RowMapper.class))).thenReturn(List.of(DAY));
+
+        orderStatsService.recordReprice(Map.of(1L, new BigDecimal("-5.00"), 2L,
+                BigDecimal.ZERO));
+
+        // Оба агрегата правятся одним UPDATE на все товары, а не пакетом по товару
+        ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate, times(2)).update(startsWith("UPDATE"), params.capture());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+        assertThat(params.getValue().getValue("productIds")).isInstanceOf(SqlArrayValue.class)
+                .extracting("elements").isEqualTo(new Object[]{1L});
+        assertThat(params.getValue().getValue("deltas")).isInstanceOf(SqlArrayValue.class)
+                .extracting("elements").isEqualTo(new Object[]{new BigDecimal("-5.00")});
+        ArgumentCaptor<OrderStatsChangedEvent> event =
+                ArgumentCaptor.forClass(OrderStatsChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getDays()).containsExactly(DAY);
+        assertThat(event.getValue().getProductIds()).containsExactly(1L);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.restservice.service;
+
+import com.example.restservice.dto.ProductDto;
+import com.example.restservice.dto.ProductImportReportDto;
+import com.example.restservice.exception.InvalidProductException;
+import com.example.restservice.mapper.ProductMapper;
+import com.example.restservice.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        productImportService = new ProductImportService(entityManager, transactionManager,
+                validator, new ObjectMapper(), productMapper, eventPublisher, 2, 50);
+    }
+
+    @Test
+    void testImportProducts_reportsRejectedItemsPerChunk() {
+        when(productMapper.toEntity(any())).thenAnswer(inv -> new Product());
+
+        ProductImportReportDto report = productImportService.importProducts(List.of(
+                dto("Laptop", "999.99"), dto("X", "-1"), dto("Mouse", "19.99")));
+
+        assertThat(report.getReceived()).isEqualTo(3);
+        assertThat(report.getSaved()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(1);
+        assertThat(report.getChunkCount()).isEqualTo(2);
+        assertThat(report.getRejectedItems())
+                .singleElement()
+                .satisfies(error -> {
+                    assertThat(error.getItem()).isEqualTo(1);
+                    assertThat(error.getErrors()).containsKeys("name", "price");
+                });
+        verify(entityManager, times(2)).persist(any(Product.class));
+    }
+
+    @Test
+    void testImportProducts_failedChunkDoesNotStopImport() {
+        when(productMapper.toEntity(any())).thenAnswer(inv -> new Product());
+        doThrow(new IllegalStateException("db down")).doNothing()
+                .when(entityManager).flush();
+
+        ProductImportReportDto report = productImportService.importProducts(List.of(
+                dto("Laptop", "999.99"), dto("Mouse", "19.99"), dto("Monitor", "199.99")));
+
+        assertThat(report.getFailedChunks()).singleElement().satisfies(chunk -> {
+            assertThat(chunk.getChunk()).isZero();
+            assertThat(chunk.getItems()).isEqualTo(2);
+            assertThat(chunk.getError()).contains("db down");
+        });
+        assertThat(report.getSaved()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(2);
+    }
+
+    @Test
+    void testSessionProgress_publishesImmutableSnapshotPerChunk() {
+        ProductImportSession session = productImportService.openSession();
+        ProductImportReportDto initial = session.getProgress();
+
+        session.accept(dto("X", "-1"));
+        assertThat(session.getProgress()).isSameAs(initial);
+
+        session.accept(dto("Y", "-1"));
+        ProductImportReportDto progress = session.getProgress();
+        assertThat(progress.getReceived()).isEqualTo(2);
+        assertThat(progress.getRejected()).isEqualTo(2);
+        assertThat(initial.getReceived()).isZero();
+        assertThatThrownBy(() -> progress.getRejectedItems().clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+
+        session.accept(dto("Z", "-1"));
+        assertThat(progress.getReceived()).isEqualTo(2);
+        assertThat(progress.getRejectedItems()).hasSize(2);
+    }
+
+    @Test
+    void testImportNdjson_rejectsMalformedLines() throws Exception {
+        when(productMapper.toEntity(any())).thenAnswer(inv -> new Product());
+        String body = "{\"name\":\"Laptop\",\"price\":999.99}\n"
+                + "{broken\n"
+                + "\n"
+                + "{\"name\":\"Mouse\",\"price\":19.99}\n";
+
+        ProductImportReportDto report = productImportService.importNdjson(stream(body));
+
+        assertThat(report.getReceived()).isEqualTo(3);
+        assertThat(report.getSaved()).isEqualTo(2);
+        assertThat(report.getRejectedItems().get(0).getErrors().get("line"))
+                .startsWith("Строка 2");
+    }
+
+    @Test
+    void testImportCsv_quotedValuesAndBadPrice() throws Exception {
+        when(productMapper.toEntity(any())).thenAnswer(inv -> {
+            ProductDto dto = inv.getArgument(0);
+            Product product = new Product();
+            product.setName(dto.getName());
+            return product;
+        });
+        String body = "price,name\n"
+                + "10.50,\"Cable, USB \"\"C\"\"\"\n"
+                + "abc,Mouse\n";
+
+        ProductImportReportDto report = productImportService.importCsv(stream(body));
+
+        assertThat(report.getSaved()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(1);
+        verify(entityManager).persist(argThat((Product p) -> "Cable, USB \"C\"".equals(p.getName())));
+    }
+
+    @Test
+    void testImportNdjson_keepsOnlyFirstErrorDetails() throws Exception {
+        int bad = ProductImportSession.MAX_ERROR_DETAILS + 50;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < bad; i++) {
+            body.append("{\"name\":\"").append("x".repeat(5000)).append('\n');
+        }
+
+        ProductImportReportDto report = productImportService.importNdjson(stream(body.toString()));
+
+        assertThat(report.getRejected()).isEqualTo(bad);
+        assertThat(report.getRejectedItems()).hasSize(ProductImportSession.MAX_ERROR_DETAILS);
+        assertThat(report.getOmittedErrors()).isEqualTo(50);
+        assertThat(report.getRejectedItems().get(0).getErrors().get("line"))
+                .hasSizeLessThanOrEqualTo(ProductImportSession.MAX_MESSAGE_LENGTH + 1);
+        assertThat(report.getChunkCount()).isEqualTo((bad + 1) / 2);
+    }
+
+    @Test
+    void testImportCsv_missingColumns_shouldThrow() {
+        assertThatThrownBy(() -> productImportService.importCsv(stream("title,cost\n")))
+                .isInstanceOf(InvalidProductException.class);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ProductDto dto(String name, String price) {
+        ProductDto dto = new ProductDto();
+        dto.setName(name);
+        dto.setPrice(new BigDecimal(price));
+        return dto;
+    }
+}
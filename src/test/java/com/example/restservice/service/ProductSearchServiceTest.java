@@ -0,0 +1,55 @@
+package com.example.restservice.service;
+
+import com.example.restservice.event.ProductChangedEvent;
+import com.example.restservice.model.Product;
+import com.example.restservice.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchService productSearchService;
+
+    @BeforeEach
+    void setUp() {
+        productSearchService = new ProductSearchService(productRepository);
+    }
+
+    @Test
+    void testRebuildIndex_keepsChangesMadeWhileChunkWasRead() {
+        // Порция прочитана до изменений, а события о них пришли, пока она загружалась
+        when(productRepository.findBy(any(Specification.class), any())).thenAnswer(inv -> {
+            productSearchService.onProductChanged(ProductChangedEvent.updated(
+                    List.of(product(1L, "Laptop Pro")), Set.of()));
+            productSearchService.onProductChanged(ProductChangedEvent.deleted(List.of(2L)));
+            return List.of(product(1L, "Laptop"), product(2L, "Lamp"), product(3L, "Lantern"));
+        });
+
+        productSearchService.rebuildIndex();
+
+        assertThat(productSearchService.suggest("la", 10)).extracting(Product::getName)
+                .containsExactly("Lantern", "Laptop Pro");
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
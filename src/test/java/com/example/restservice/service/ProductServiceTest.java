@@ -1,19 +1,36 @@
 package com.example.restservice.service;
 
+import com.example.restservice.cache.ProductCatalog;
+import com.example.restservice.cache.ProductCatalogSnapshot;
+import com.example.restservice.dto.BulkDeleteReportDto;
+import com.example.restservice.dto.BulkUpdateReportDto;
+import com.example.restservice.dto.CursorPageDto;
+import com.example.restservice.dto.PageCursor;
 import com.example.restservice.dto.ProductDto;
+import com.example.restservice.dto.ProductPageQuery;
+import com.example.restservice.dto.ProductUpdateDto;
+import com.example.restservice.event.ChangeType;
+import com.example.restservice.event.ProductChangedEvent;
+import com.example.restservice.exception.InvalidPageRequestException;
 import com.example.restservice.exception.InvalidProductException;
+import com.example.restservice.exception.ProductInOrderException;
 import com.example.restservice.mapper.ProductMapper;
 import com.example.restservice.model.Product;
+import com.example.restservice.repository.OrderRepository;
 import com.example.restservice.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +44,18 @@ class ProductServiceTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    @Mock
+    private OrderStatsService orderStatsService;
+
     @InjectMocks
     private ProductService productService;
 
@@ -47,10 +76,103 @@ class ProductServiceTest {
 
     @Test
     void testGetAllProducts_shouldReturnList() {
-        when(productRepository.findAll()).thenReturn(List.of(product));
+        when(productCatalog.current()).thenReturn(
+                new ProductCatalogSnapshot(0, List.of(product), new byte[0], "\"0\""));
         List<Product> result = productService.getAllProducts();
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getName()).isEqualTo("Laptop");
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetProductsPage_hasNextCursor() {
+        Product second = new Product();
+        second.setId(2L);
+        second.setName("Mouse");
+        second.setPrice(new BigDecimal("19.99"));
+        when(productRepository.findBy(any(Specification.class), any())).thenReturn(List.of(product, second));
+
+        ProductPageQuery query = new ProductPageQuery();
+        query.setSize(1);
+        query.setSort("price");
+        CursorPageDto<Product> page = productService.getProductsPage(query);
+
+        assertThat(page.getItems()).containsExactly(product);
+        PageCursor cursor = PageCursor.decode(page.getNextCursor(), "price", false);
+        assertThat(cursor.getLastId()).isEqualTo(1L);
+        assertThat(cursor.getLastValue()).isEqualTo("999.99");
+    }
+
+    @Test
+    void testGetProductsPage_unpricedProductsFollowPriced() {
+        Product unpriced = new Product();
+        unpriced.setId(5L);
+        unpriced.setName("Sample");
+        Product nextUnpriced = new Product();
+        nextUnpriced.setId(7L);
+        nextUnpriced.setName("Sample 2");
+        when(productRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(product), List.of(unpriced, nextUnpriced));
+
+        ProductPageQuery query = new ProductPageQuery();
+        query.setSize(2);
+        query.setSort("price");
+        CursorPageDto<Product> page = productService.getProductsPage(query);
+
+        assertThat(page.getItems()).containsExactly(product, unpriced);
+        PageCursor cursor = PageCursor.decode(page.getNextCursor(), "price", false);
+        assertThat(cursor.getLastId()).isEqualTo(5L);
+        assertThat(cursor.getLastValue()).isEmpty();
+        verify(productRepository, times(2)).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void testGetProductsPage_unpricedCursorSkipsPricedProducts() {
+        Product unpriced = new Product();
+        unpriced.setId(7L);
+        unpriced.setName("Sample 2");
+        when(productRepository.findBy(any(Specification.class), any())).thenReturn(List.of(unpriced));
+
+        ProductPageQuery query = new ProductPageQuery();
+        query.setSort("price");
+        query.setCursor(new PageCursor("price", false, 5L, null).encode());
+        CursorPageDto<Product> page = productService.getProductsPage(query);
+
+        assertThat(page.getItems()).containsExactly(unpriced);
+        assertThat(page.getNextCursor()).isNull();
+        verify(productRepository).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void testGetProductsPage_priceFilterSkipsUnpricedQuery() {
+        when(productRepository.findBy(any(Specification.class), any())).thenReturn(List.of(product));
+
+        ProductPageQuery query = new ProductPageQuery();
+        query.setSort("price");
+        query.setMinPrice(new BigDecimal("100.00"));
+        productService.getProductsPage(query);
+
+        verify(productRepository).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void testGetProductsPage_lastPage() {
+        when(productRepository.findBy(any(Specification.class), any())).thenReturn(List.of(product));
+
+        CursorPageDto<Product> page = productService.getProductsPage(new ProductPageQuery());
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void testGetProductsPage_cursorForOtherSort_shouldThrow() {
+        ProductPageQuery query = new ProductPageQuery();
+        query.setSort("name");
+        query.setCursor(new PageCursor("price", false, 1L, "10").encode());
+
+        assertThatThrownBy(() -> productService.getProductsPage(query))
+                .isInstanceOf(InvalidPageRequestException.class);
     }
 
     @Test
@@ -73,6 +195,9 @@ class ProductServiceTest {
         when(productRepository.save(product)).thenReturn(product);
         Product saved = productService.createProduct(product);
         assertThat(saved.getName()).isEqualTo("Laptop");
+        ProductChangedEvent event = publishedEvent();
+        assertThat(event.getType()).isEqualTo(ChangeType.CREATED);
+        assertThat(event.getProducts()).extracting(Product::getName).containsExactly("Laptop");
     }
 
     @Test
@@ -86,39 +211,132 @@ class ProductServiceTest {
     @Test
     void testUpdateProduct_found() {
         Product updated = new Product();
+        updated.setId(1L);
         updated.setName("Monitor");
         updated.setPrice(new BigDecimal("199.99"));
 
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(product));
         when(productRepository.save(any(Product.class))).thenReturn(updated);
 
         Optional<Product> result = productService.updateProduct(1L, updated);
         assertThat(result).isPresent();
         assertThat(result.get().getName()).isEqualTo("Monitor");
+        verify(orderRepository, never()).findOrdersByProductNameKey(any());
+        ProductChangedEvent event = publishedEvent();
+        assertThat(event.getType()).isEqualTo(ChangeType.UPDATED);
+        assertThat(event.getPreviousNameKeys()).containsExactly("laptop");
+    }
+
+    @Test
+    void testUpdateProducts_shiftsOrdersOnlyForRepriced() {
+        Product mouse = new Product();
+        mouse.setId(2L);
+        mouse.setName("Mouse");
+        mouse.setPrice(new BigDecimal("19.99"));
+        Product cable = new Product();
+        cable.setId(4L);
+        cable.setName("Cable");
+        cable.setPrice(new BigDecimal("5.00"));
+        when(productRepository.findAllByIdForUpdate(Set.of(1L, 2L, 3L, 4L)))
+                .thenReturn(List.of(product, mouse, cable));
+        // Разницы обоих товаров уходят одним UPDATE; число — разные заказы
+        when(orderRepository.shiftTotalsForProducts(new Long[]{1L, 4L},
+                new BigDecimal[]{new BigDecimal("-100.00"), new BigDecimal("2.50")})).thenReturn(5);
+
+        BulkUpdateReportDto report = productService.updateProducts(List.of(
+                update(1L, "Laptop", "899.99"),
+                update(2L, "Gaming Mouse", "19.99"),
+                update(3L, "Ghost", "1.00"),
+                update(4L, "Cable", "7.50")));
+
+        assertThat(report.getUpdated()).extracting(Product::getName)
+                .containsExactly("Laptop", "Gaming Mouse", "Cable");
+        assertThat(report.getNotFound()).containsExactly(3L);
+        assertThat(report.getRecalculatedOrders()).isEqualTo(5);
+        verify(orderRepository).lockOrdersWithProducts(Set.of(1L, 4L));
+        verify(orderRepository).shiftTotalsForProducts(any(), any());
+        verify(orderStatsService).recordReprice(Map.of(1L, new BigDecimal("-100.00"),
+                4L, new BigDecimal("2.50")));
+    }
+
+    @Test
+    void testRepriceOrders_shiftsTotalsByDelta() {
+        when(orderRepository.shiftTotalsForProducts(new Long[]{1L},
+                new BigDecimal[]{new BigDecimal("-800.00")})).thenReturn(3);
+
+        int result = productService.repriceOrders(1L, new BigDecimal("999.99"),
+                new BigDecimal("199.99"));
+
+        assertThat(result).isEqualTo(3);
+        verify(orderStatsService).recordReprice(Map.of(1L, new BigDecimal("-800.00")));
+    }
+
+    @Test
+    void testRepriceOrders_samePrice_noUpdate() {
+        int result = productService.repriceOrders(1L, new BigDecimal("10.0"),
+                new BigDecimal("10.00"));
+
+        assertThat(result).isZero();
+        verify(orderRepository, never()).shiftTotalsForProducts(any(), any());
+        verifyNoInteractions(orderStatsService);
     }
 
     @Test
     void testUpdateProduct_notFound() {
-        when(productRepository.findById(999L)).thenReturn(Optional.empty());
+        when(productRepository.findByIdForUpdate(999L)).thenReturn(Optional.empty());
         Optional<Product> result = productService.updateProduct(999L, product);
         assertThat(result).isEmpty();
     }
 
     @Test
     void testDeleteProduct_found() {
-        when(productRepository.existsById(1L)).thenReturn(true);
+        when(productRepository.deleteIfUnused(1L)).thenReturn(1);
         boolean result = productService.deleteProduct(1L);
-        verify(productRepository).deleteById(1L);
         assertThat(result).isTrue();
+        verify(productRepository, never()).existsById(any());
+        verify(orderRepository, never()).findOrdersByProductNameKey(any());
+        ProductChangedEvent event = publishedEvent();
+        assertThat(event.getType()).isEqualTo(ChangeType.DELETED);
+        assertThat(event.getProductIds()).containsExactly(1L);
     }
 
     @Test
     void testDeleteProduct_notFound() {
+        when(productRepository.deleteIfUnused(999L)).thenReturn(0);
         when(productRepository.existsById(999L)).thenReturn(false);
         boolean result = productService.deleteProduct(999L);
         assertThat(result).isFalse();
     }
 
+    @Test
+    void testDeleteProduct_inUse_shouldThrow() {
+        when(productRepository.deleteIfUnused(1L)).thenReturn(0);
+        when(productRepository.existsById(1L)).thenReturn(true);
+        assertThatThrownBy(() -> productService.deleteProduct(1L))
+                .isInstanceOf(ProductInOrderException.class);
+    }
+
+    @Test
+    void testDeleteProducts_reportsBlockedAndNotFound() {
+        when(productRepository.findExistingIds(Set.of(1L, 2L, 3L))).thenReturn(List.of(1L, 2L));
+        when(productRepository.findExistingIds(Set.of(1L, 2L))).thenReturn(List.of(2L));
+
+        BulkDeleteReportDto report = productService.deleteProducts(List.of(1L, 2L, 3L));
+
+        assertThat(report.getDeleted()).containsExactly(1L);
+        assertThat(report.getBlocked()).containsExactly(2L);
+        assertThat(report.getNotFound()).containsExactly(3L);
+        verify(productRepository).deleteAllUnused(Set.of(1L, 2L));
+    }
+
+    private static ProductUpdateDto update(Long id, String name, String price) {
+        ProductUpdateDto dto = new ProductUpdateDto();
+        dto.setId(id);
+        dto.setName(name);
+        dto.setPrice(new BigDecimal(price));
+        return dto;
+    }
+
     @Test
     void testCreateProducts_bulkInsert() {
         when(productMapper.toEntity(productDto)).thenReturn(product);
@@ -129,4 +347,11 @@ class ProductServiceTest {
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getName()).isEqualTo("Laptop");
     }
+
+    private ProductChangedEvent publishedEvent() {
+        ArgumentCaptor<ProductChangedEvent> captor =
+                ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        return captor.getValue();
+    }
 }